@@ -0,0 +1,126 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.app.Instrumentation;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumentation benchmark of MainActivity's startup: the time from onCreate to its first frame
+ * and to the first frame showing the forecast.  Prints the medians.
+ *
+ * The launches share the test's process, so process creation and Application startup are not
+ * part of these times.  A cold start is played by emptying ForecastStore before a launch.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MainActivityStartupBenchmark {
+
+    private static final int LAUNCHES = 10;
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    // Each test starts cold, with neither kept rows nor a snapshot file
+    @Before
+    public void setUp() {
+        ForecastStore.getInstance().setRows(Collections.<ForecastRow>emptyList());
+        File snapshot = ForecastSnapshotFile.getFile(
+                InstrumentationRegistry.getInstrumentation().getTargetContext());
+        assertTrue(!snapshot.exists() || snapshot.delete());
+    }
+
+    /* The first launch loads from the provider, the following ones start with kept rows */
+    @Test
+    public void startup_timeToFirstFrameAndContent() throws Exception {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+
+        long[] firstFrameNanos = new long[LAUNCHES];
+        long[] contentNanos = new long[LAUNCHES];
+        for (int launch = 0; launch < LAUNCHES; launch++) {
+            String source = launch(instrumentation, firstFrameNanos, contentNanos, launch);
+            assertEquals(launch == 0 ? "provider" : "last load", source);
+        }
+
+        System.out.println("MainActivity first load: first frame "
+                + firstFrameNanos[0] / 1000 + " us, content " + contentNanos[0] / 1000 + " us");
+        System.out.println("MainActivity with kept rows: first frame "
+                + median(firstFrameNanos) / 1000 + " us, content " + median(contentNanos) / 1000
+                + " us");
+    }
+
+    /* Cold starts, with the snapshot file and with only the provider */
+    @Test
+    public void startup_withAndWithoutSnapshot() throws Exception {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        File snapshot = ForecastSnapshotFile.getFile(instrumentation.getTargetContext());
+
+        long[] firstFrameNanos = new long[LAUNCHES];
+        long[] contentNanos = new long[LAUNCHES];
+        // The first launch, left out of the median, has its loader write the snapshot
+        for (int launch = 0; launch < LAUNCHES; launch++) {
+            ForecastStore.getInstance().setRows(Collections.<ForecastRow>emptyList());
+            String source = launch(instrumentation, firstFrameNanos, contentNanos, launch);
+            assertTrue(launch == 0 || "snapshot".equals(source));
+        }
+        assertTrue(snapshot.exists());
+        System.out.println("MainActivity cold, snapshot: first frame "
+                + median(firstFrameNanos) / 1000 + " us, content " + median(contentNanos) / 1000
+                + " us");
+
+        for (int launch = 0; launch < LAUNCHES; launch++) {
+            ForecastStore.getInstance().setRows(Collections.<ForecastRow>emptyList());
+            assertTrue(!snapshot.exists() || snapshot.delete());
+            String source = launch(instrumentation, firstFrameNanos, contentNanos, launch);
+            assertEquals("provider", source);
+        }
+        System.out.println("MainActivity cold, provider only: first frame "
+                + median(firstFrameNanos) / 1000 + " us, content " + median(contentNanos) / 1000
+                + " us");
+    }
+
+    // Launches MainActivity until it shows the forecast, records its times and returns its source
+    private static String launch(Instrumentation instrumentation, long[] firstFrameNanos,
+                               long[] contentNanos, int launch) {
+        Intent intent = new Intent(Intent.ACTION_MAIN)
+                .setClassName(instrumentation.getTargetContext(), MainActivity.class.getName())
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        final MainActivity activity = (MainActivity) instrumentation.startActivitySync(intent);
+
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MILLIS;
+        while (activity.getTimeToContentNanos() == 0 && SystemClock.uptimeMillis() < deadline) {
+            instrumentation.waitForIdleSync();
+            SystemClock.sleep(10);
+        }
+        firstFrameNanos[launch] = activity.getTimeToFirstFrameNanos();
+        contentNanos[launch] = activity.getTimeToContentNanos();
+
+        // Wait for the load too, so it doesn't overlap the next launch
+        SystemClock.sleep(500);
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                activity.finish();
+            }
+        });
+        instrumentation.waitForIdleSync();
+
+        assertTrue("no forecast shown, is there weather data?", contentNanos[launch] > 0);
+        return activity.getContentSource();
+    }
+
+    // Of the launches after the first
+    private static long median(long[] nanos) {
+        long[] sorted = Arrays.copyOfRange(nanos, 1, nanos.length);
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
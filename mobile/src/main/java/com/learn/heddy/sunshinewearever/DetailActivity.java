@@ -20,22 +20,28 @@ import android.database.Cursor;
 import android.databinding.DataBindingUtil;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.support.v4.app.LoaderManager;
 import android.support.v4.app.ShareCompat;
-import android.support.v4.content.CursorLoader;
 import android.support.v4.content.Loader;
+import android.support.v4.view.GestureDetectorCompat;
 import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
+import android.view.GestureDetector;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
 import com.learn.heddy.sunshinewearever.data.WeatherContract;
 import com.learn.heddy.sunshinewearever.databinding.ActivityDetailBinding;
-import com.learn.heddy.sunshinewearever.utilities.SunshineDateUtils;
-import com.learn.heddy.sunshinewearever.utilities.SunshineWeatherUtils;
 
 /*
- *  Note: This file is the Udacity starter code as-is
+ *  Note: This file is the Udacity starter code, except that the day is formatted by
+ *  DetailLoader off the main thread, drawn right away from ForecastStore when the list already
+ *  has it, can be swiped to the day before or after, and that the time to its first draw is logged
  */
 
 public class DetailActivity extends AppCompatActivity implements
@@ -47,6 +53,14 @@ public class DetailActivity extends AppCompatActivity implements
      */
     private static final String FORECAST_SHARE_HASHTAG = " #SunshineApp";
 
+    private static final String TAG = DetailActivity.class.getSimpleName();
+
+    /* SystemClock.elapsedRealtimeNanos() of the click on the day, set by MainActivity */
+    static final String EXTRA_CLICK_NANOS = "click_nanos";
+
+    /* The day shown, which swiping changes from the one the intent opened */
+    private static final String STATE_URI = "uri";
+
     /*
      * The columns of data that we are interested in displaying within our DetailActivity's
      * weather display.
@@ -101,20 +115,90 @@ public class DetailActivity extends AppCompatActivity implements
      */
     private ActivityDetailBinding mDetailBinding;
 
+    /* When opening the day started, 0 once its first draw was logged */
+    private long mOpenNanos;
+
+    /* Turns horizontal flings into the day before or after */
+    private GestureDetectorCompat mSwipeDetector;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
+        // Only a fresh open from the list is measured, not a rotation
+        if (savedInstanceState == null) {
+            mOpenNanos = getIntent().getLongExtra(EXTRA_CLICK_NANOS,
+                    SystemClock.elapsedRealtimeNanos());
+        }
 
         mDetailBinding = DataBindingUtil.setContentView(this, R.layout.activity_detail);
 
-        mUri = getIntent().getData();
+        mUri = savedInstanceState == null
+                ? getIntent().getData() : (Uri) savedInstanceState.getParcelable(STATE_URI);
         if (mUri == null) throw new NullPointerException("URI for DetailActivity cannot be null");
 
+        /* The list usually formatted this day already; the loader below refreshes it anyway */
+        ForecastDetail detail = ForecastStore.getInstance().get(getDate(mUri));
+        if (detail != null) {
+            bindDetail(detail);
+        }
+
+        mSwipeDetector = new GestureDetectorCompat(this,
+                new GestureDetector.SimpleOnGestureListener() {
+                    @Override
+                    public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX,
+                                           float velocityY) {
+                        if (Math.abs(velocityX) <= 2 * Math.abs(velocityY)) {
+                            return false;
+                        }
+                        // Swiping to the left brings in the next day, as paging would
+                        return showAdjacentDay(velocityX < 0 ? 1 : -1);
+                    }
+                });
+
         /* This connects our Activity into the loader lifecycle. */
         getSupportLoaderManager().initLoader(ID_DETAIL_LOADER, null, this);
     }
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putParcelable(STATE_URI, mUri);
+    }
+
+    /* Sees the swipes before the scrolling views of the layout do */
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        mSwipeDetector.onTouchEvent(event);
+        return super.dispatchTouchEvent(event);
+    }
+
+    /*
+     * Shows the stored day that far from the one shown, and loads it like a newly opened day.
+     *
+     * @return false if ForecastStore doesn't have a day there
+     */
+    private boolean showAdjacentDay(int offset) {
+        ForecastDetail detail = ForecastStore.getInstance().getAdjacent(getDate(mUri), offset);
+        if (detail == null) {
+            return false;
+        }
+
+        mUri = WeatherContract.WeatherEntry.buildWeatherUriWithDate(detail.date);
+        bindDetail(detail);
+        getSupportLoaderManager().restartLoader(ID_DETAIL_LOADER, null, this);
+        return true;
+    }
+
+    /* The normalized date the URI of a day ends with, as WeatherProvider reads it */
+    private static long getDate(Uri uri) {
+        try {
+            return Long.parseLong(uri.getLastPathSegment());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     /**
      * This is where we inflate and set up the menu for this Activity.
      *
@@ -183,7 +267,7 @@ public class DetailActivity extends AppCompatActivity implements
     }
 
     /**
-     * Creates and returns a CursorLoader that loads the data for our URI and stores it in a Cursor.
+     * Creates and returns a DetailLoader that loads the data for our URI and formats it.
      *
      * @param loaderId The loader ID for which we need to create a loader
      * @param loaderArgs Any arguments supplied by the caller
@@ -197,7 +281,7 @@ public class DetailActivity extends AppCompatActivity implements
 
             case ID_DETAIL_LOADER:
 
-                return new CursorLoader(this,
+                return new DetailLoader(this,
                         mUri,
                         WEATHER_DETAIL_PROJECTION,
                         null,
@@ -223,164 +307,54 @@ public class DetailActivity extends AppCompatActivity implements
     public void onLoadFinished(Loader<Cursor> loader, Cursor data) {
 
         /*
-         * Before we bind the data to the UI that will display that data, we need to check the
-         * cursor to make sure we have the results that we are expecting. In order to do that, we
-         * check to make sure the cursor is not null and then we call moveToFirst on the cursor.
-         * Although it may not seem obvious at first, moveToFirst will return true if it contains
-         * a valid first row of data.
-         *
-         * If we have valid data, we want to continue on to bind that data to the UI. If we don't
-         * have any data to bind, we just return from this method.
+         * DetailLoader already formatted the day on its background thread, so all that is left
+         * here is to set the texts. There is nothing to show when the cursor had no row.
          */
-        boolean cursorHasValidData = false;
-        if (data != null && data.moveToFirst()) {
-            /* We have valid data, continue on to bind the data to the UI */
-            cursorHasValidData = true;
-        }
-
-        if (!cursorHasValidData) {
-            /* No data to display, simply return and do nothing */
+        ForecastDetail detail = data instanceof DetailLoader.DetailCursor
+                ? ((DetailLoader.DetailCursor) data).detail : null;
+        if (detail == null) {
             return;
         }
 
-        /****************
-         * Weather Icon *
-         ****************/
-        /* Read weather condition ID from the cursor (ID provided by Open Weather Map) */
-        int weatherId = data.getInt(INDEX_WEATHER_CONDITION_ID);
-        /* Use our utility method to determine the resource ID for the proper art */
-        int weatherImageId = SunshineWeatherUtils.getLargeArtResourceIdForWeatherCondition(weatherId);
-
-        /* Set the resource ID on the icon to display the art */
-        mDetailBinding.primaryInfo.weatherIcon.setImageResource(weatherImageId);
-
-        /****************
-         * Weather Date *
-         ****************/
-        /*
-         * Read the date from the cursor. It is important to note that the date from the cursor
-         * is the same date from the weather SQL table. The date that is stored is a GMT
-         * representation at midnight of the date when the weather information was loaded for.
-         *
-         * When displaying this date, one must add the GMT offset (in milliseconds) to acquire
-         * the date representation for the local date in local time.
-         * SunshineDateUtils#getFriendlyDateString takes care of this for us.
-         */
-        long localDateMidnightGmt = data.getLong(INDEX_WEATHER_DATE);
-        String dateText = SunshineDateUtils.getFriendlyDateString(this, localDateMidnightGmt, true);
-
-        mDetailBinding.primaryInfo.date.setText(dateText);
-
-        /***********************
-         * Weather Description *
-         ***********************/
-        /* Use the weatherId to obtain the proper description */
-        String description = SunshineWeatherUtils.getStringForWeatherCondition(this, weatherId);
-
-        /* Create the accessibility (a11y) String from the weather description */
-        String descriptionA11y = getString(R.string.a11y_forecast, description);
-
-        /* Set the text and content description (for accessibility purposes) */
-        mDetailBinding.primaryInfo.weatherDescription.setText(description);
-        mDetailBinding.primaryInfo.weatherDescription.setContentDescription(descriptionA11y);
-
-        /* Set the content description on the weather image (for accessibility purposes) */
-        mDetailBinding.primaryInfo.weatherIcon.setContentDescription(descriptionA11y);
-
-        /**************************
-         * High (max) temperature *
-         **************************/
-        /* Read high temperature from the cursor (in degrees celsius) */
-        double highInCelsius = data.getDouble(INDEX_WEATHER_MAX_TEMP);
-        /*
-         * If the user's preference for weather is fahrenheit, formatTemperature will convert
-         * the temperature. This method will also append either °C or °F to the temperature
-         * String.
-         */
-        String highString = SunshineWeatherUtils.formatTemperature(this, highInCelsius);
-
-        /* Create the accessibility (a11y) String from the weather description */
-        String highA11y = getString(R.string.a11y_high_temp, highString);
-
-        /* Set the text and content description (for accessibility purposes) */
-        mDetailBinding.primaryInfo.highTemperature.setText(highString);
-        mDetailBinding.primaryInfo.highTemperature.setContentDescription(highA11y);
-
-        /*************************
-         * Low (min) temperature *
-         *************************/
-        /* Read low temperature from the cursor (in degrees celsius) */
-        double lowInCelsius = data.getDouble(INDEX_WEATHER_MIN_TEMP);
-        /*
-         * If the user's preference for weather is fahrenheit, formatTemperature will convert
-         * the temperature. This method will also append either °C or °F to the temperature
-         * String.
-         */
-        String lowString = SunshineWeatherUtils.formatTemperature(this, lowInCelsius);
-
-        String lowA11y = getString(R.string.a11y_low_temp, lowString);
-
-        /* Set the text and content description (for accessibility purposes) */
-        mDetailBinding.primaryInfo.lowTemperature.setText(lowString);
-        mDetailBinding.primaryInfo.lowTemperature.setContentDescription(lowA11y);
-
-        /************
-         * Humidity *
-         ************/
-        /* Read humidity from the cursor */
-        float humidity = data.getFloat(INDEX_WEATHER_HUMIDITY);
-        String humidityString = getString(R.string.format_humidity, humidity);
-
-        String humidityA11y = getString(R.string.a11y_humidity, humidityString);
-
-        /* Set the text and content description (for accessibility purposes) */
-        mDetailBinding.extraDetails.humidity.setText(humidityString);
-        mDetailBinding.extraDetails.humidity.setContentDescription(humidityA11y);
-
-        mDetailBinding.extraDetails.humidityLabel.setContentDescription(humidityA11y);
+        bindDetail(detail);
+    }
 
-        /****************************
-         * Wind speed and direction *
-         ****************************/
-        /* Read wind speed (in MPH) and direction (in compass degrees) from the cursor  */
-        float windSpeed = data.getFloat(INDEX_WEATHER_WIND_SPEED);
-        float windDirection = data.getFloat(INDEX_WEATHER_DEGREES);
-        String windString = SunshineWeatherUtils.getFormattedWind(this, windSpeed, windDirection);
+    /* Copies the formatted day into the views */
+    private void bindDetail(ForecastDetail detail) {
+        /* Weather icon, and its content description for accessibility */
+        mDetailBinding.primaryInfo.weatherIcon.setImageResource(detail.weatherImageResId);
+        mDetailBinding.primaryInfo.weatherIcon.setContentDescription(detail.descriptionA11y);
 
-        String windA11y = getString(R.string.a11y_wind, windString);
+        mDetailBinding.primaryInfo.date.setText(detail.dateText);
 
-        /* Set the text and content description (for accessibility purposes) */
-        mDetailBinding.extraDetails.windMeasurement.setText(windString);
-        mDetailBinding.extraDetails.windMeasurement.setContentDescription(windA11y);
+        mDetailBinding.primaryInfo.weatherDescription.setText(detail.description);
+        mDetailBinding.primaryInfo.weatherDescription
+                .setContentDescription(detail.descriptionA11y);
 
-        mDetailBinding.extraDetails.windLabel.setContentDescription(windA11y);
+        mDetailBinding.primaryInfo.highTemperature.setText(detail.highText);
+        mDetailBinding.primaryInfo.highTemperature.setContentDescription(detail.highA11y);
 
-        /************
-         * Pressure *
-         ************/
-        /* Read pressure from the cursor */
-        float pressure = data.getFloat(INDEX_WEATHER_PRESSURE);
+        mDetailBinding.primaryInfo.lowTemperature.setText(detail.lowText);
+        mDetailBinding.primaryInfo.lowTemperature.setContentDescription(detail.lowA11y);
 
-        /*
-         * Format the pressure text using string resources. The reason we directly access
-         * resources using getString rather than using a method from SunshineWeatherUtils as
-         * we have for other data displayed in this Activity is because there is no
-         * additional logic that needs to be considered in order to properly display the
-         * pressure.
-         */
-        String pressureString = getString(R.string.format_pressure, pressure);
+        mDetailBinding.extraDetails.humidity.setText(detail.humidityText);
+        mDetailBinding.extraDetails.humidity.setContentDescription(detail.humidityA11y);
+        mDetailBinding.extraDetails.humidityLabel.setContentDescription(detail.humidityA11y);
 
-        String pressureA11y = getString(R.string.a11y_pressure, pressureString);
+        mDetailBinding.extraDetails.windMeasurement.setText(detail.windText);
+        mDetailBinding.extraDetails.windMeasurement.setContentDescription(detail.windA11y);
+        mDetailBinding.extraDetails.windLabel.setContentDescription(detail.windA11y);
 
-        /* Set the text and content description (for accessibility purposes) */
-        mDetailBinding.extraDetails.pressure.setText(pressureString);
-        mDetailBinding.extraDetails.pressure.setContentDescription(pressureA11y);
-
-        mDetailBinding.extraDetails.pressureLabel.setContentDescription(pressureA11y);
+        mDetailBinding.extraDetails.pressure.setText(detail.pressureText);
+        mDetailBinding.extraDetails.pressure.setContentDescription(detail.pressureA11y);
+        mDetailBinding.extraDetails.pressureLabel.setContentDescription(detail.pressureA11y);
 
         /* Store the forecast summary String in our forecast summary field to share later */
-        mForecastSummary = String.format("%s - %s - %s/%s",
-                dateText, description, highString, lowString);
+        mForecastSummary = detail.summary;
+
+        if (mOpenNanos != 0) {
+            logFirstDraw();
+        }
     }
 
     /**
@@ -393,4 +367,23 @@ public class DetailActivity extends AppCompatActivity implements
     @Override
     public void onLoaderReset(Loader<Cursor> loader) {
     }
+
+    /*
+     * Logs the time from the click on the day to the first draw with its data, which is when the
+     * user actually sees it.
+     */
+    private void logFirstDraw() {
+        final long openNanos = mOpenNanos;
+        mOpenNanos = 0;
+        final View root = mDetailBinding.getRoot();
+        root.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                root.getViewTreeObserver().removeOnPreDrawListener(this);
+                Log.d(TAG, "Detail first draw: "
+                        + (SystemClock.elapsedRealtimeNanos() - openNanos) / 1000000 + " ms");
+                return true;
+            }
+        });
+    }
 }
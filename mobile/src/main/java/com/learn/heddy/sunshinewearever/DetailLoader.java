@@ -0,0 +1,49 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.net.Uri;
+import android.support.v4.content.CursorLoader;
+
+/**
+ * CursorLoader for the day of {@link DetailActivity} that also formats the day into a
+ * {@link ForecastDetail} while it is still on the loader's background thread, so the activity
+ * binds without touching the cursor, the preferences or the resources.
+ *
+ * Everything else, like the reload when the weather table changes, is plain CursorLoader
+ * behaviour.
+ */
+
+public class DetailLoader extends CursorLoader {
+
+    // The loaded cursor together with its formatted day
+    static class DetailCursor extends CursorWrapper {
+        /* Null when the cursor has no row */
+        final ForecastDetail detail;
+
+        DetailCursor(Cursor cursor, ForecastDetail detail) {
+            super(cursor);
+            this.detail = detail;
+        }
+    }
+
+    public DetailLoader(Context context, Uri uri, String[] projection, String selection,
+                        String[] selectionArgs, String sortOrder) {
+        super(context, uri, projection, selection, selectionArgs, sortOrder);
+    }
+
+    @Override
+    public Cursor loadInBackground() {
+        Cursor cursor = super.loadInBackground();
+        if (cursor == null) {
+            return null;
+        }
+
+        ForecastDetail detail = null;
+        if (cursor.moveToFirst()) {
+            detail = ForecastDetail.fromCursor(getContext(), cursor);
+        }
+        return new DetailCursor(cursor, detail);
+    }
+}
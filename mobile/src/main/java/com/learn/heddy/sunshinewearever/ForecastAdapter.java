@@ -19,21 +19,25 @@ import android.content.Context;
 import android.database.Cursor;
 import android.support.annotation.NonNull;
 import android.support.v7.widget.RecyclerView;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 
-import com.learn.heddy.sunshinewearever.utilities.SunshineDateUtils;
-import com.learn.heddy.sunshinewearever.utilities.SunshineWeatherUtils;
+import java.util.Collections;
+import java.util.List;
 
 /*
- *  Note: This file is the Udacity starter code as-is
+ *  Note: This file started as the Udacity starter code, the rows are now formatted by
+ *  ForecastLoader
  */
 
 public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.ForecastAdapterViewHolder> {
 
+    private static final String TAG = ForecastAdapter.class.getSimpleName();
+
     private static final int VIEW_TYPE_TODAY = 0;
     private static final int VIEW_TYPE_FUTURE_DAY = 1;
 
@@ -63,7 +67,11 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
      */
     private boolean mUseTodayLayout;
 
-    private Cursor mCursor;
+    private List<ForecastRow> mRows = Collections.emptyList();
+
+    /* Binds since the last swap, logged when the next data arrives */
+    private int mFullBinds;
+    private int mTemperatureBinds;
 
     /**
      * Creates a ForecastAdapter.
@@ -123,18 +131,20 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
      * details for this particular position, using the "position" argument that is conveniently
      * passed into us.
      *
+     * Every String of the row was formatted by {@link ForecastLoader} on its background thread,
+     * so binding only copies fields into the views.
+     *
      * @param forecastAdapterViewHolder The ViewHolder which should be updated to represent the
      *                                  contents of the item at the given position in the data set.
      * @param position                  The position of the item within the adapter's data set.
      */
     @Override
     public void onBindViewHolder(ForecastAdapterViewHolder forecastAdapterViewHolder, int position) {
-        mCursor.moveToPosition(position);
+        ForecastRow row = mRows.get(position);
 
         /****************
          * Weather Icon *
          ****************/
-        int weatherId = mCursor.getInt(MainActivity.INDEX_WEATHER_CONDITION_ID);
         int weatherImageId;
 
         int viewType = getItemViewType(position);
@@ -142,13 +152,11 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         switch (viewType) {
 
             case VIEW_TYPE_TODAY:
-                weatherImageId = SunshineWeatherUtils
-                        .getLargeArtResourceIdForWeatherCondition(weatherId);
+                weatherImageId = row.largeIconResId;
                 break;
 
             case VIEW_TYPE_FUTURE_DAY:
-                weatherImageId = SunshineWeatherUtils
-                        .getSmallArtResourceIdForWeatherCondition(weatherId);
+                weatherImageId = row.smallIconResId;
                 break;
 
             default:
@@ -160,59 +168,54 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         /****************
          * Weather Date *
          ****************/
-         /* Read date from the cursor */
-        long dateInMillis = mCursor.getLong(MainActivity.INDEX_WEATHER_DATE);
-         /* Get human readable string using our utility method */
-        String dateString = SunshineDateUtils.getFriendlyDateString(mContext, dateInMillis, false);
-
-         /* Display friendly date string */
-        forecastAdapterViewHolder.dateView.setText(dateString);
+        forecastAdapterViewHolder.dateView.setText(row.dateText);
 
         /***********************
          * Weather Description *
          ***********************/
-        String description = SunshineWeatherUtils.getStringForWeatherCondition(mContext, weatherId);
-         /* Create the accessibility (a11y) String from the weather description */
-        String descriptionA11y = mContext.getString(R.string.a11y_forecast, description);
-
          /* Set the text and content description (for accessibility purposes) */
-        forecastAdapterViewHolder.descriptionView.setText(description);
-        forecastAdapterViewHolder.descriptionView.setContentDescription(descriptionA11y);
+        forecastAdapterViewHolder.descriptionView.setText(row.description);
+        forecastAdapterViewHolder.descriptionView.setContentDescription(row.descriptionA11y);
+
+        bindTemperature(forecastAdapterViewHolder, row);
+        mFullBinds++;
+    }
+
+    /**
+     * A row whose change only carries {@link ForecastDiffCallback#PAYLOAD_TEMPERATURE} keeps its
+     * icon, date and description and only gets the new temperatures.
+     */
+    @Override
+    public void onBindViewHolder(ForecastAdapterViewHolder forecastAdapterViewHolder, int position,
+                                 List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(forecastAdapterViewHolder, position);
+            return;
+        }
+        for (Object payload : payloads) {
+            if (payload != ForecastDiffCallback.PAYLOAD_TEMPERATURE) {
+                onBindViewHolder(forecastAdapterViewHolder, position);
+                return;
+            }
+        }
 
+        bindTemperature(forecastAdapterViewHolder, mRows.get(position));
+        mTemperatureBinds++;
+    }
+
+    private void bindTemperature(ForecastAdapterViewHolder forecastAdapterViewHolder,
+                                 ForecastRow row) {
         /**************************
          * High (max) temperature *
          **************************/
-         /* Read high temperature from the cursor (in degrees celsius) */
-        double highInCelsius = mCursor.getDouble(MainActivity.INDEX_WEATHER_MAX_TEMP);
-         /*
-          * If the user's preference for weather is fahrenheit, formatTemperature will convert
-          * the temperature. This method will also append either °C or °F to the temperature
-          * String.
-          */
-        String highString = SunshineWeatherUtils.formatTemperature(mContext, highInCelsius);
-         /* Create the accessibility (a11y) String from the weather description */
-        String highA11y = mContext.getString(R.string.a11y_high_temp, highString);
-
-         /* Set the text and content description (for accessibility purposes) */
-        forecastAdapterViewHolder.highTempView.setText(highString);
-        forecastAdapterViewHolder.highTempView.setContentDescription(highA11y);
+        forecastAdapterViewHolder.highTempView.setText(row.highText);
+        forecastAdapterViewHolder.highTempView.setContentDescription(row.highA11y);
 
         /*************************
          * Low (min) temperature *
          *************************/
-         /* Read low temperature from the cursor (in degrees celsius) */
-        double lowInCelsius = mCursor.getDouble(MainActivity.INDEX_WEATHER_MIN_TEMP);
-         /*
-          * If the user's preference for weather is fahrenheit, formatTemperature will convert
-          * the temperature. This method will also append either °C or °F to the temperature
-          * String.
-          */
-        String lowString = SunshineWeatherUtils.formatTemperature(mContext, lowInCelsius);
-        String lowA11y = mContext.getString(R.string.a11y_low_temp, lowString);
-
-         /* Set the text and content description (for accessibility purposes) */
-        forecastAdapterViewHolder.lowTempView.setText(lowString);
-        forecastAdapterViewHolder.lowTempView.setContentDescription(lowA11y);
+        forecastAdapterViewHolder.lowTempView.setText(row.lowText);
+        forecastAdapterViewHolder.lowTempView.setContentDescription(row.lowA11y);
     }
 
     /**
@@ -223,8 +226,7 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
      */
     @Override
     public int getItemCount() {
-        if (null == mCursor) return 0;
-        return mCursor.getCount();
+        return mRows.size();
     }
 
     /**
@@ -247,16 +249,54 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
     }
 
     /**
-     * Swaps the cursor used by the ForecastAdapter for its weather data. This method is called by
+     * Shows rows kept from an earlier load until a cursor arrives.  When that cursor's diff starts
+     * from these same rows, only what changed since is updated.
+     *
+     * @param rows the rows of {@link ForecastStore}
+     */
+    void setRows(List<ForecastRow> rows) {
+        mRows = rows;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Swaps the rows used by the ForecastAdapter for its weather data. This method is called by
      * MainActivity after a load has finished, as well as when the Loader responsible for loading
-     * the weather data is reset. When this method is called, we assume we have a completely new
-     * set of data, so we call notifyDataSetChanged to tell the RecyclerView to update.
+     * the weather data is reset.
+     *
+     * A cursor from {@link ForecastLoader} comes with its diff from the previous load, computed
+     * on the loader's thread, and only the inserted, removed and changed rows are updated.  When
+     * the diff doesn't start from the rows shown, e.g. after a reset, every row is bound again.
      *
      * @param newCursor the new cursor to use as ForecastAdapter's data source
      */
     void swapCursor(Cursor newCursor) {
-        mCursor = newCursor;
-        notifyDataSetChanged();
+        Log.d(TAG, "Binds for the last update: " + mFullBinds + " full, "
+                + mTemperatureBinds + " temperature only");
+        mFullBinds = 0;
+        mTemperatureBinds = 0;
+
+        if (!(newCursor instanceof ForecastLoader.ForecastRowCursor)) {
+            mRows = Collections.emptyList();
+            notifyDataSetChanged();
+            return;
+        }
+
+        ForecastLoader.ForecastRowCursor rowCursor = (ForecastLoader.ForecastRowCursor) newCursor;
+        List<ForecastRow> oldRows = mRows;
+        mRows = rowCursor.rows;
+        if (rowCursor.previousRows != oldRows) {
+            notifyDataSetChanged();
+            return;
+        }
+
+        rowCursor.diff.dispatchUpdatesTo(this);
+
+        // A new first day needs the today layout, which a shift alone doesn't rebind
+        if (mUseTodayLayout && !mRows.isEmpty() && !oldRows.isEmpty()
+                && mRows.get(0).date != oldRows.get(0).date) {
+            notifyItemChanged(0);
+        }
     }
 
     /**
@@ -294,8 +334,11 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         @Override
         public void onClick(View v) {
             int adapterPosition = getAdapterPosition();
-            mCursor.moveToPosition(adapterPosition);
-            long dateInMillis = mCursor.getLong(MainActivity.INDEX_WEATHER_DATE);
+            // A holder being removed or rebound by a diff has no row to open
+            if (adapterPosition == RecyclerView.NO_POSITION || adapterPosition >= mRows.size()) {
+                return;
+            }
+            long dateInMillis = mRows.get(adapterPosition).date;
             mClickHandler.onClick(dateInMillis);
         }
     }
@@ -0,0 +1,82 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import com.learn.heddy.sunshinewearever.utilities.SunshineDateUtils;
+import com.learn.heddy.sunshinewearever.utilities.SunshineWeatherUtils;
+
+/**
+ * Everything {@link DetailActivity} shows for one day, with every String already formatted, so
+ * onLoadFinished() only copies fields into the views.  Built on a loader's thread, by
+ * {@link DetailLoader} for the day shown and by {@link ForecastLoader} for {@link ForecastStore}.
+ */
+
+public class ForecastDetail {
+
+    /* Normalized UTC date, as stored in the weather table */
+    public final long date;
+
+    public final int weatherImageResId;
+
+    public final String dateText;
+    public final String description;
+    public final String descriptionA11y;
+    public final String highText;
+    public final String highA11y;
+    public final String lowText;
+    public final String lowA11y;
+    public final String humidityText;
+    public final String humidityA11y;
+    public final String windText;
+    public final String windA11y;
+    public final String pressureText;
+    public final String pressureA11y;
+
+    /* Shared by the share button */
+    public final String summary;
+
+    private ForecastDetail(Context context, Cursor cursor) {
+        date = cursor.getLong(DetailActivity.INDEX_WEATHER_DATE);
+        int weatherId = cursor.getInt(DetailActivity.INDEX_WEATHER_CONDITION_ID);
+        weatherImageResId =
+                SunshineWeatherUtils.getLargeArtResourceIdForWeatherCondition(weatherId);
+
+        dateText = SunshineDateUtils.getFriendlyDateString(context, date, true);
+
+        description = SunshineWeatherUtils.getStringForWeatherCondition(context, weatherId);
+        descriptionA11y = context.getString(R.string.a11y_forecast, description);
+
+        highText = SunshineWeatherUtils.formatTemperature(context,
+                cursor.getDouble(DetailActivity.INDEX_WEATHER_MAX_TEMP));
+        highA11y = context.getString(R.string.a11y_high_temp, highText);
+
+        lowText = SunshineWeatherUtils.formatTemperature(context,
+                cursor.getDouble(DetailActivity.INDEX_WEATHER_MIN_TEMP));
+        lowA11y = context.getString(R.string.a11y_low_temp, lowText);
+
+        humidityText = context.getString(R.string.format_humidity,
+                cursor.getFloat(DetailActivity.INDEX_WEATHER_HUMIDITY));
+        humidityA11y = context.getString(R.string.a11y_humidity, humidityText);
+
+        windText = SunshineWeatherUtils.getFormattedWind(context,
+                cursor.getFloat(DetailActivity.INDEX_WEATHER_WIND_SPEED),
+                cursor.getFloat(DetailActivity.INDEX_WEATHER_DEGREES));
+        windA11y = context.getString(R.string.a11y_wind, windText);
+
+        pressureText = context.getString(R.string.format_pressure,
+                cursor.getFloat(DetailActivity.INDEX_WEATHER_PRESSURE));
+        pressureA11y = context.getString(R.string.a11y_pressure, pressureText);
+
+        summary = String.format("%s - %s - %s/%s", dateText, description, highText, lowText);
+    }
+
+    /**
+     * Formats the row the cursor is positioned on, the same way onLoadFinished() used to.
+     *
+     * @param cursor a cursor with the columns of {@link DetailActivity#WEATHER_DETAIL_PROJECTION}
+     */
+    static ForecastDetail fromCursor(Context context, Cursor cursor) {
+        return new ForecastDetail(context, cursor);
+    }
+}
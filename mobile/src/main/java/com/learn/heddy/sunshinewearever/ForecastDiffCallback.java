@@ -0,0 +1,76 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.support.v7.util.DiffUtil;
+
+import java.util.List;
+
+/**
+ * Compares two loads of {@link ForecastRow}s for {@link DiffUtil}.  Rows are the same item when
+ * they are for the same normalized date; when only the temperatures of a day moved, the change
+ * carries {@link #PAYLOAD_TEMPERATURE} so the adapter can leave the icon and texts alone.
+ */
+
+class ForecastDiffCallback extends DiffUtil.Callback {
+
+    /* Change payload of a row whose high or low is all that changed */
+    static final Object PAYLOAD_TEMPERATURE = new Object();
+
+    private final List<ForecastRow> mOldRows;
+    private final List<ForecastRow> mNewRows;
+
+    ForecastDiffCallback(List<ForecastRow> oldRows, List<ForecastRow> newRows) {
+        mOldRows = oldRows;
+        mNewRows = newRows;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return mOldRows.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return mNewRows.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+        return mOldRows.get(oldItemPosition).date == mNewRows.get(newItemPosition).date;
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+        ForecastRow oldRow = mOldRows.get(oldItemPosition);
+        ForecastRow newRow = mNewRows.get(newItemPosition);
+        return sameExceptTemperature(oldRow, newRow) && sameTemperature(oldRow, newRow);
+    }
+
+    @Override
+    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+        // Only called for rows whose contents differ
+        if (sameExceptTemperature(mOldRows.get(oldItemPosition), mNewRows.get(newItemPosition))) {
+            return PAYLOAD_TEMPERATURE;
+        }
+        return null;
+    }
+
+    private static boolean sameExceptTemperature(ForecastRow oldRow, ForecastRow newRow) {
+        return oldRow.weatherId == newRow.weatherId
+                && oldRow.largeIconResId == newRow.largeIconResId
+                && oldRow.smallIconResId == newRow.smallIconResId
+                && equal(oldRow.dateText, newRow.dateText)
+                && equal(oldRow.description, newRow.description)
+                && equal(oldRow.descriptionA11y, newRow.descriptionA11y);
+    }
+
+    private static boolean sameTemperature(ForecastRow oldRow, ForecastRow newRow) {
+        return equal(oldRow.highText, newRow.highText)
+                && equal(oldRow.highA11y, newRow.highA11y)
+                && equal(oldRow.lowText, newRow.lowText)
+                && equal(oldRow.lowA11y, newRow.lowA11y);
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
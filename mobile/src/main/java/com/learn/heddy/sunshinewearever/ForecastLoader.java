@@ -0,0 +1,106 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.net.Uri;
+import android.support.v4.content.CursorLoader;
+import android.support.v7.util.DiffUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CursorLoader for the forecast list that also turns every row into a {@link ForecastRow} while
+ * it is still on the loader's background thread.  The returned cursor carries the rows, so the
+ * adapter never touches the cursor, the preferences or the resources while scrolling.
+ *
+ * It also diffs the rows against those of the previous load, keyed on the normalized date, so
+ * a sync that moved one day only updates that day's list item.  And it formats the full detail of
+ * the same days into {@link ForecastStore}, so a day opens without waiting for its own query,
+ * and keeps {@link ForecastSnapshotFile} up to date for the next cold start.
+ *
+ * Everything else, like the reload when the weather table or the units change, is plain
+ * CursorLoader behaviour.
+ */
+
+public class ForecastLoader extends CursorLoader {
+
+    // The loaded cursor together with its formatted rows and their diff from the last load
+    static class ForecastRowCursor extends CursorWrapper {
+        final List<ForecastRow> rows;
+        /* Rows of the previous load, the diff only applies on top of exactly these */
+        final List<ForecastRow> previousRows;
+        final DiffUtil.DiffResult diff;
+
+        ForecastRowCursor(Cursor cursor, List<ForecastRow> rows, List<ForecastRow> previousRows,
+                          DiffUtil.DiffResult diff) {
+            super(cursor);
+            this.rows = rows;
+            this.previousRows = previousRows;
+            this.diff = diff;
+        }
+    }
+
+    /*
+     * Rows of the last load; loads of one loader never run at the same time.  A new loader starts
+     * from those of the store, which MainActivity shows until its first load.
+     */
+    private List<ForecastRow> mLastRows = ForecastStore.getInstance().getRows();
+
+    public ForecastLoader(Context context, Uri uri, String[] projection, String selection,
+                          String[] selectionArgs, String sortOrder) {
+        super(context, uri, projection, selection, selectionArgs, sortOrder);
+    }
+
+    @Override
+    public Cursor loadInBackground() {
+        Cursor cursor = super.loadInBackground();
+        if (cursor == null) {
+            return null;
+        }
+
+        List<ForecastRow> rows = new ArrayList<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            rows.add(ForecastRow.fromCursor(getContext(), cursor));
+        }
+        cursor.moveToPosition(-1);
+        rows = Collections.unmodifiableList(rows);
+
+        // Dates only ever move forward in the list, so there are no moves to detect
+        List<ForecastRow> previousRows = mLastRows;
+        DiffUtil.DiffResult diff =
+                DiffUtil.calculateDiff(new ForecastDiffCallback(previousRows, rows), false);
+        mLastRows = rows;
+        ForecastStore.getInstance().setRows(rows);
+        ForecastSnapshotFile.write(getContext(), rows);
+
+        prefetchDetails();
+
+        return new ForecastRowCursor(cursor, rows, previousRows, diff);
+    }
+
+    /*
+     * The list's days with the detail columns.  These are the same couple of weeks of rows, so
+     * the visible days and those a swipe away are all there.
+     */
+    private void prefetchDetails() {
+        Cursor cursor = getContext().getContentResolver().query(getUri(),
+                DetailActivity.WEATHER_DETAIL_PROJECTION, getSelection(), getSelectionArgs(),
+                getSortOrder());
+        if (cursor == null) {
+            return;
+        }
+
+        try {
+            List<ForecastDetail> details = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                details.add(ForecastDetail.fromCursor(getContext(), cursor));
+            }
+            ForecastStore.getInstance().setDays(details);
+        } finally {
+            cursor.close();
+        }
+    }
+}
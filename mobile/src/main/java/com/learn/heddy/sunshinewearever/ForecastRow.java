@@ -0,0 +1,74 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import com.learn.heddy.sunshinewearever.utilities.SunshineDateUtils;
+import com.learn.heddy.sunshinewearever.utilities.SunshineWeatherUtils;
+
+/**
+ * One list item of {@link ForecastAdapter} with every String already formatted, so binding a row
+ * only copies fields into its views.  Built by {@link ForecastLoader} on the loader's thread.
+ */
+
+public class ForecastRow {
+
+    /* Normalized UTC date, as stored in the weather table */
+    public final long date;
+    public final int weatherId;
+
+    /* Art for the today layout and for the other days */
+    public final int largeIconResId;
+    public final int smallIconResId;
+
+    public final String dateText;
+    public final String description;
+    public final String descriptionA11y;
+    public final String highText;
+    public final String highA11y;
+    public final String lowText;
+    public final String lowA11y;
+
+    ForecastRow(long date, int weatherId, int largeIconResId, int smallIconResId,
+                String dateText, String description, String descriptionA11y,
+                String highText, String highA11y, String lowText, String lowA11y) {
+        this.date = date;
+        this.weatherId = weatherId;
+        this.largeIconResId = largeIconResId;
+        this.smallIconResId = smallIconResId;
+        this.dateText = dateText;
+        this.description = description;
+        this.descriptionA11y = descriptionA11y;
+        this.highText = highText;
+        this.highA11y = highA11y;
+        this.lowText = lowText;
+        this.lowA11y = lowA11y;
+    }
+
+    /**
+     * Formats the row the cursor is positioned on, the same way onBindViewHolder() used to.
+     *
+     * @param cursor a cursor with the columns of {@link MainActivity#MAIN_FORECAST_PROJECTION}
+     */
+    static ForecastRow fromCursor(Context context, Cursor cursor) {
+        long date = cursor.getLong(MainActivity.INDEX_WEATHER_DATE);
+        int weatherId = cursor.getInt(MainActivity.INDEX_WEATHER_CONDITION_ID);
+
+        String description = SunshineWeatherUtils.getStringForWeatherCondition(context, weatherId);
+        String highText = SunshineWeatherUtils.formatTemperature(context,
+                cursor.getDouble(MainActivity.INDEX_WEATHER_MAX_TEMP));
+        String lowText = SunshineWeatherUtils.formatTemperature(context,
+                cursor.getDouble(MainActivity.INDEX_WEATHER_MIN_TEMP));
+
+        return new ForecastRow(date, weatherId,
+                SunshineWeatherUtils.getLargeArtResourceIdForWeatherCondition(weatherId),
+                SunshineWeatherUtils.getSmallArtResourceIdForWeatherCondition(weatherId),
+                SunshineDateUtils.getFriendlyDateString(context, date, false),
+                description,
+                context.getString(R.string.a11y_forecast, description),
+                highText,
+                context.getString(R.string.a11y_high_temp, highText),
+                lowText,
+                context.getString(R.string.a11y_low_temp, lowText));
+    }
+}
@@ -0,0 +1,238 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import com.learn.heddy.sunshinewearever.data.SunshinePreferences;
+import com.learn.heddy.sunshinewearever.data.WeatherContract;
+import com.learn.heddy.sunshinewearever.utilities.SunshineDateUtils;
+import com.learn.heddy.sunshinewearever.utilities.SunshineWeatherUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * A small binary file with the {@link ForecastRow}s of the today-onwards forecast, texts already
+ * formatted, so a cold MainActivity draws the list from one memory-mapped read instead of waiting
+ * for SQLite, WeatherProvider and the loader.  The sync writes it after every insert, and
+ * {@link ForecastLoader} after every load that changed it.
+ *
+ * The texts hold for one app version, unit, locale, time zone and day (for "Today" and
+ * "Tomorrow"); the file is not used when any of them changed since it was written.
+ *
+ * Layout, big-endian: magic, format version, app version code, today's normalized date, metric
+ * flag, configuration string, row count, then per row the date, the weather ID and seven strings.
+ * Strings are an unsigned short byte count followed by UTF-8; icons are looked up again on read.
+ */
+
+public class ForecastSnapshotFile {
+
+    private static final String TAG = "ForecastSnapshotFile";
+
+    private static final String FILE_NAME = "forecast.snapshot";
+
+    private static final int MAGIC = 0x534e5348;
+    private static final int FORMAT_VERSION = 1;
+
+    /* The last bytes written, to leave an unchanged file alone */
+    private static byte[] sLastBytes;
+
+    private ForecastSnapshotFile() {
+    }
+
+    /**
+     * Writes the today-onwards forecast of the weather table, as MainActivity would list it.
+     * Called by the sync, off the main thread.
+     */
+    public static void writeFromProvider(Context context) {
+        Cursor cursor = context.getContentResolver().query(
+                WeatherContract.WeatherEntry.CONTENT_URI,
+                MainActivity.MAIN_FORECAST_PROJECTION,
+                WeatherContract.WeatherEntry.getSqlSelectForTodayOnwards(),
+                null,
+                WeatherContract.WeatherEntry.COLUMN_DATE + " ASC");
+        if (cursor == null) {
+            return;
+        }
+
+        List<ForecastRow> rows = new ArrayList<>(cursor.getCount());
+        try {
+            while (cursor.moveToNext()) {
+                rows.add(ForecastRow.fromCursor(context, cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        write(context, rows);
+    }
+
+    /**
+     * Writes the rows of a load, unless the file already holds exactly these.  Off the main
+     * thread only.
+     */
+    static synchronized void write(Context context, List<ForecastRow> rows) {
+        File file = getFile(context);
+        byte[] bytes = encode(BuildConfig.VERSION_CODE, SunshinePreferences.isMetric(context),
+                getConfiguration(), SunshineDateUtils.getNormalizedUtcDateForToday(), rows);
+        if (Arrays.equals(bytes, sLastBytes) && file.exists()) {
+            return;
+        }
+
+        // Replaced in one rename, so a reader never maps half a file
+        File tempFile = new File(context.getFilesDir(), FILE_NAME + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(tempFile);
+            out.write(bytes);
+            out.getFD().sync();
+            out.close();
+            out = null;
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("rename failed");
+            }
+            sLastBytes = bytes;
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't write " + file + ": " + e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps and decodes the file.  Meant for MainActivity's onCreate, where the few KB of the file
+     * cost less than opening the database.
+     *
+     * @return the rows, null if there is no file or it doesn't fit the current settings
+     */
+    static List<ForecastRow> read(Context context) {
+        File file = getFile(context);
+        if (!file.exists()) {
+            return null;
+        }
+
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "r");
+            FileChannel channel = randomAccessFile.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer, BuildConfig.VERSION_CODE, SunshinePreferences.isMetric(context),
+                    getConfiguration(), SunshineDateUtils.getNormalizedUtcDateForToday());
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't read " + file + ": " + e);
+            return null;
+        } finally {
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    static File getFile(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    // The settings, besides units and day, that the texts were formatted for
+    private static String getConfiguration() {
+        return Locale.getDefault().toString() + '/' + TimeZone.getDefault().getID();
+    }
+
+    static byte[] encode(int versionCode, boolean metric, String configuration, long today,
+                         List<ForecastRow> rows) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + rows.size() * 160);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(versionCode);
+            out.writeLong(today);
+            out.writeBoolean(metric);
+            writeString(out, configuration);
+            out.writeInt(rows.size());
+            for (ForecastRow row : rows) {
+                out.writeLong(row.date);
+                out.writeInt(row.weatherId);
+                writeString(out, row.dateText);
+                writeString(out, row.description);
+                writeString(out, row.descriptionA11y);
+                writeString(out, row.highText);
+                writeString(out, row.highA11y);
+                writeString(out, row.lowText);
+                writeString(out, row.lowA11y);
+            }
+            out.flush();
+        } catch (IOException e) {
+            // A ByteArrayOutputStream doesn't throw
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the rows, null if the bytes are not a snapshot written for these settings
+     */
+    static List<ForecastRow> decode(ByteBuffer buffer, int versionCode, boolean metric,
+                                    String configuration, long today) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+                    || buffer.getInt() != versionCode || buffer.getLong() != today
+                    || (buffer.get() != 0) != metric
+                    || !configuration.equals(readString(buffer))) {
+                return null;
+            }
+
+            int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining()) {
+                return null;
+            }
+            List<ForecastRow> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long date = buffer.getLong();
+                int weatherId = buffer.getInt();
+                rows.add(new ForecastRow(date, weatherId,
+                        SunshineWeatherUtils.getLargeArtResourceIdForWeatherCondition(weatherId),
+                        SunshineWeatherUtils.getSmallArtResourceIdForWeatherCondition(weatherId),
+                        readString(buffer), readString(buffer), readString(buffer),
+                        readString(buffer), readString(buffer), readString(buffer),
+                        readString(buffer)));
+            }
+            return Collections.unmodifiableList(rows);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] utf8 = new byte[buffer.getShort() & 0xffff];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,101 @@
+package com.learn.heddy.sunshinewearever;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-process copy of the last forecast load, shared by both screens.  {@link ForecastLoader}
+ * fills it along with the list:
+ *
+ * - the list rows, so a new MainActivity in a running process shows them before its own load;
+ * - the formatted {@link ForecastDetail} of every day, so opening a day from the list, and
+ *   swiping to the day before or after it, is drawn from memory at once while
+ *   {@link DetailLoader} still loads the day from the provider.
+ *
+ * Each load replaces the whole set of days, which readers see all at once.
+ */
+
+final class ForecastStore {
+
+    private static final ForecastStore sInstance = new ForecastStore();
+
+    // One load of days, ascending by date
+    private static final class Days {
+        final long[] dates;
+        final ForecastDetail[] details;
+
+        Days(long[] dates, ForecastDetail[] details) {
+            this.dates = dates;
+            this.details = details;
+        }
+    }
+
+    private volatile Days mDays = new Days(new long[0], new ForecastDetail[0]);
+
+    private volatile List<ForecastRow> mRows = Collections.emptyList();
+
+    // Instances other than the shared one are for local tests
+    ForecastStore() {
+    }
+
+    static ForecastStore getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * @return the list rows of the last load, empty before the first one
+     */
+    List<ForecastRow> getRows() {
+        return mRows;
+    }
+
+    /**
+     * @param rows the unmodifiable rows of a load
+     */
+    void setRows(List<ForecastRow> rows) {
+        mRows = rows;
+    }
+
+    /**
+     * Replaces the stored days.
+     *
+     * @param details the days of a load, ascending by date as the list is sorted
+     */
+    void setDays(List<ForecastDetail> details) {
+        long[] dates = new long[details.size()];
+        ForecastDetail[] array = new ForecastDetail[details.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = details.get(i);
+            dates[i] = array[i].date;
+        }
+        mDays = new Days(dates, array);
+    }
+
+    /**
+     * @param date normalized UTC date of the day
+     * @return the day, null if the last load didn't have it
+     */
+    ForecastDetail get(long date) {
+        return getAdjacent(date, 0);
+    }
+
+    /**
+     * @param date   normalized UTC date of a stored day
+     * @param offset how many days after it, negative for days before it
+     * @return the day that far from the given one, null if either of them isn't stored
+     */
+    ForecastDetail getAdjacent(long date, int offset) {
+        Days days = mDays;
+        int index = Arrays.binarySearch(days.dates, date);
+        if (index < 0) {
+            return null;
+        }
+
+        index += offset;
+        if (index < 0 || index >= days.details.length) {
+            return null;
+        }
+        return days.details[index];
+    }
+}
@@ -16,14 +16,11 @@
 package com.learn.heddy.sunshinewearever;
 
 import android.content.Intent;
-import android.content.res.Resources;
 import android.database.Cursor;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.support.v4.app.LoaderManager;
-import android.support.v4.content.CursorLoader;
 import android.support.v4.content.Loader;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.LinearLayoutManager;
@@ -33,29 +30,27 @@ import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.ProgressBar;
 
-import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.common.api.ResultCallback;
-import com.google.android.gms.wearable.Asset;
-import com.google.android.gms.wearable.DataApi;
-import com.google.android.gms.wearable.PutDataMapRequest;
-import com.google.android.gms.wearable.PutDataRequest;
-import com.google.android.gms.wearable.Wearable;
 import com.learn.heddy.sunshinewearever.data.SunshinePreferences;
 import com.learn.heddy.sunshinewearever.data.WeatherContract;
 import com.learn.heddy.sunshinewearever.sync.SunshineSyncUtils;
-import com.learn.heddy.sunshinewearever.utilities.SunshineWeatherUtils;
+import com.learn.heddy.sunshinewearever.watchface.WatchFacePublisher;
+import com.learn.heddy.sunshinewearever.watchface.WatchPayload;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /*
  *  Starting with the Udacity starter code,
  *  added methods to complete the WatchFace project as below:
  *
- *  1.  GoogleApiClient is built and connection is attempted during onCreate()
- *  2.  Sending Data is invokded after Load is finished inside the onLoadFinished()
+ *  1.  Sending Data is invokded after Load is finished inside the onLoadFinished()
+ *  2.  The app-wide WatchFacePublisher owns the Wearable connection and sends the Data
+ *  3.  Startup shows the rows of the last load, or of the snapshot file, right away, and only
+ *      schedules the sync and talks to the Watch once the first frame is drawn; both times are
+ *      logged
  *
  */
 public class MainActivity extends AppCompatActivity implements
@@ -94,6 +89,9 @@ public class MainActivity extends AppCompatActivity implements
      */
     private static final int ID_FORECAST_LOADER = 44;
 
+    /* A Watch payload still waiting for the first frame when the activity is recreated */
+    private static final String STATE_PENDING_WATCH_PAYLOAD = "pending_watch_payload";
+
     private ForecastAdapter mForecastAdapter;
     private RecyclerView mRecyclerView;
     private int mPosition = RecyclerView.NO_POSITION;
@@ -101,20 +99,30 @@ public class MainActivity extends AppCompatActivity implements
     private ProgressBar mLoadingIndicator;
 
     /*
-     *  WatchFace code added by hyeryung park 2/16/2017
-     *  These 3 Strings are keys to the Data transfer between Phone and Watch
+     * Startup times, from SystemClock.elapsedRealtimeNanos() at onCreate to the first frame and
+     * to the first frame showing a forecast; 0 until they happened.
      */
-    private static final String SUNSHINE_PATH = "/sunshinewearever";
-
-    private static final String HIGH_LOW_KEY = "high_low";
-    private static final String BITMAP_KEY = "bitmap";
+    private long mCreateNanos;
+    private long mFirstFrameNanos;
+    private long mContentNanos;
+    private boolean mContentDrawPending;
+    /* Where the rows of that first frame came from */
+    private String mContentSource;
 
-    private GoogleApiClient mGoogleApiClient;
+    /* The sync and the Watch wait for the first frame; a load done before it leaves its payload */
+    private boolean mFirstFrameDrawn;
+    private WatchPayload mPendingWatchPayload;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        mCreateNanos = SystemClock.elapsedRealtimeNanos();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_forecast);
+
+        if (savedInstanceState != null) {
+            mPendingWatchPayload = WatchPayload.decode(
+                    savedInstanceState.getByteArray(STATE_PENDING_WATCH_PAYLOAD));
+        }
         getSupportActionBar().setElevation(0f);
 
         /*
@@ -173,8 +181,29 @@ public class MainActivity extends AppCompatActivity implements
         /* Setting the adapter attaches it to the RecyclerView in our layout. */
         mRecyclerView.setAdapter(mForecastAdapter);
 
-
-        showLoading();
+        /*
+         * Show the forecast an earlier MainActivity of this process loaded or, on a cold start,
+         * the one of the snapshot file, until the loader below delivers. Its first load then
+         * starts from these rows and only updates what changed since.
+         */
+        List<ForecastRow> lastRows = ForecastStore.getInstance().getRows();
+        mContentSource = "last load";
+        if (lastRows.isEmpty()) {
+            List<ForecastRow> snapshotRows = ForecastSnapshotFile.read(this);
+            if (snapshotRows != null) {
+                ForecastStore.getInstance().setRows(snapshotRows);
+                lastRows = snapshotRows;
+                mContentSource = "snapshot";
+            }
+        }
+        if (lastRows.isEmpty()) {
+            mContentSource = "provider";
+            showLoading();
+        } else {
+            mForecastAdapter.setRows(lastRows);
+            showWeatherDataView();
+            onContentShown();
+        }
 
         /*
          * Ensures a loader is initialized and active. If the loader doesn't already exist, one is
@@ -183,13 +212,85 @@ public class MainActivity extends AppCompatActivity implements
          */
         getSupportLoaderManager().initLoader(ID_FORECAST_LOADER, null, this);
 
+        /* Scheduling the sync and connecting to the Watch can wait until the list is up */
+        final View decorView = getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                        mFirstFrameNanos = SystemClock.elapsedRealtimeNanos() - mCreateNanos;
+                        // Posted, so it runs once this frame is drawn
+                        decorView.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                onFirstFrameDrawn();
+                            }
+                        });
+                        return true;
+                    }
+                });
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        // Not left to the loader delivering again; an equal payload is suppressed anyway
+        if (mPendingWatchPayload != null) {
+            outState.putByteArray(STATE_PENDING_WATCH_PAYLOAD, mPendingWatchPayload.encode());
+        }
+    }
+
+    /*
+     * The deferred part of the startup.
+     */
+    private void onFirstFrameDrawn() {
+        mFirstFrameDrawn = true;
+        Log.d(TAG, "Startup: first frame " + mFirstFrameNanos / 1000000 + " ms");
+
         SunshineSyncUtils.initialize(this);
 
-        mGoogleApiClient = new GoogleApiClient.Builder(this)
-                .addApi(Wearable.API)
-                .build();
+        if (mPendingWatchPayload != null) {
+            WatchFacePublisher.getInstance(this)
+                    .publish(mPendingWatchPayload, WatchFacePublisher.SOURCE_UI);
+            mPendingWatchPayload = null;
+        }
+    }
+
+    /*
+     * Times the first draw with forecast rows, whether they came from ForecastStore or a load.
+     */
+    private void onContentShown() {
+        if (mContentNanos != 0 || mContentDrawPending) {
+            return;
+        }
 
-        mGoogleApiClient.connect();
+        mContentDrawPending = true;
+        mRecyclerView.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        mRecyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+                        mContentNanos = SystemClock.elapsedRealtimeNanos() - mCreateNanos;
+                        mContentDrawPending = false;
+                        Log.d(TAG, "Startup: content from " + mContentSource + " "
+                                + mContentNanos / 1000000 + " ms");
+                        return true;
+                    }
+                });
+    }
+
+    // For the startup benchmark, 0 until the frame was drawn
+    long getTimeToFirstFrameNanos() {
+        return mFirstFrameNanos;
+    }
+
+    long getTimeToContentNanos() {
+        return mContentNanos;
+    }
+
+    String getContentSource() {
+        return mContentSource;
     }
 
     /**
@@ -245,7 +346,7 @@ public class MainActivity extends AppCompatActivity implements
                  */
                 String selection = WeatherContract.WeatherEntry.getSqlSelectForTodayOnwards();
 
-                return new CursorLoader(this,
+                return new ForecastLoader(this,
                         forecastQueryUri,
                         MAIN_FORECAST_PROJECTION,
                         selection,
@@ -277,8 +378,12 @@ public class MainActivity extends AppCompatActivity implements
         mRecyclerView.smoothScrollToPosition(mPosition);
         if (data.getCount() != 0){
             showWeatherDataView();
-            /* invoke WatchFace handling method */
+            onContentShown();
+            /* invoke WatchFace handling method, timed since it runs on the main thread */
+            long watchStartNanos = SystemClock.elapsedRealtimeNanos();
             watchFaceDataForToday(data);
+            Log.d(TAG, "Watch work in onLoadFinished: "
+                    + (SystemClock.elapsedRealtimeNanos() - watchStartNanos) / 1000 + " us");
         }
     }
 
@@ -308,6 +413,8 @@ public class MainActivity extends AppCompatActivity implements
         Intent weatherDetailIntent = new Intent(MainActivity.this, DetailActivity.class);
         Uri uriForDateClicked = WeatherContract.WeatherEntry.buildWeatherUriWithDate(date);
         weatherDetailIntent.setData(uriForDateClicked);
+        weatherDetailIntent.putExtra(DetailActivity.EXTRA_CLICK_NANOS,
+                SystemClock.elapsedRealtimeNanos());
         startActivity(weatherDetailIntent);
     }
 
@@ -386,116 +493,35 @@ public class MainActivity extends AppCompatActivity implements
 
     /*
         Watch Face coding:
+        Only the copy of the rows happens here on the main thread, the cursor belongs to the
+        loader.  Hashing, encoding and the Data Layer calls run on the publisher's thread.
      */
     private void watchFaceDataForToday(Cursor data){
 
         if (data!=null && data.moveToFirst()){ // moveToFirst assuming the ASCENDING sort order resulted today's data at the first
-            // variables to hold new values
-            String location = "";
-            int dateAsInt = 0;
-            boolean metricChosen;
-
-            // variables to hold last saved values to compare with new values
-            String saved_location;
-            int saved_dateAsInt;
-            boolean saved_metricChosen;
-
-            boolean isOldData;
-
             /*
                 We don't want to send Data to the WatchFace if the data are same;
-                the items we want to check against are: the Date, the Location as Text and the isMetric preference.
-                These are saved as SharedPreferences for WatchFace specifically.
-             */
-            saved_location = SunshinePreferences.retrieveWatchFaceLocation(this);
-            saved_dateAsInt = SunshinePreferences.retrieveWatchFaceDateInt(this);
-            saved_metricChosen = SunshinePreferences.retrieveWatchFaceMetricChosen(this);
-
-            location = SunshinePreferences.getPreferredWeatherLocation(this);
-            dateAsInt = data.getInt(INDEX_WEATHER_DATE);
-            metricChosen = SunshinePreferences.isMetric(this);
-
-            // first time with WatchFace, then send data even if the Phone app data has not changed
-            // THIS MAY NEED MORE WORK... is there a way to know if the watch face was chosen
-            // from the Watch?
-            if (saved_dateAsInt == R.integer.wf_default_date) {
-                isOldData = false;
-            } else {
-                isOldData = (saved_dateAsInt == dateAsInt) &&
-                        (saved_location.equalsIgnoreCase(location)) &&
-                        (saved_metricChosen == metricChosen);
-            }
-
-            if (isOldData){
-            /* All criteria for old data are true, therefore, do not send to the WatchFace
-             * just get out of this method
+                WatchFacePublisher compares a hash of the whole payload with the last one sent.
              */
-                return;
+            boolean metricChosen = SunshinePreferences.isMetric(this);
+
+            // The whole forecast goes along, in Celsius; the Watch converts and formats it
+            List<WatchPayload.Day> days = new ArrayList<>(data.getCount());
+            do {
+                days.add(new WatchPayload.Day(
+                        data.getLong(INDEX_WEATHER_DATE),
+                        data.getDouble(INDEX_WEATHER_MAX_TEMP),
+                        data.getDouble(INDEX_WEATHER_MIN_TEMP),
+                        data.getInt(INDEX_WEATHER_CONDITION_ID)));
+            } while (data.moveToNext());
+
+            WatchPayload payload = new WatchPayload(metricChosen, System.currentTimeMillis(), days);
+
+            // The sync publishes to the Watch as well; this covers unit changes and first runs
+            if (mFirstFrameDrawn) {
+                WatchFacePublisher.getInstance(this).publish(payload, WatchFacePublisher.SOURCE_UI);
             } else {
-                /* New data, continue....   */
-                /** Don't forget to store the new data on the SharedPreferences */
-                SunshinePreferences.saveWatchFaceData(this, dateAsInt, location, metricChosen);
-            }
-
-            int mImageId = data.getInt(INDEX_WEATHER_CONDITION_ID);
-
-            double high_degree = data.getDouble(INDEX_WEATHER_MAX_TEMP);
-            double low_degree = data.getDouble(INDEX_WEATHER_MIN_TEMP);
-
-            // Match temperature texts exactly to the Phone display values on the DataMap
-            String lowString = SunshineWeatherUtils.formatTemperature(this, low_degree);
-            String highString = SunshineWeatherUtils.formatTemperature(this, high_degree);
-            // Convenience delimeter.  WatchFace-side code knows it and separate the high and low
-            String mHigh_low = highString + " / " + lowString;
-
-            // prepare weather image
-            Resources resources = this.getResources();
-            int smallResourceId = SunshineWeatherUtils
-                    .getSmallArtResourceIdForWeatherCondition(mImageId);
-
-            Bitmap largeIcon = BitmapFactory.decodeResource(
-                    resources,
-                    smallResourceId);
-
-            PutDataMapRequest dataMap = PutDataMapRequest.create(SUNSHINE_PATH);
-            if (largeIcon!=null) {
-                dataMap.getDataMap().putAsset(BITMAP_KEY, toAsset(largeIcon));
-            }
-            dataMap.getDataMap().putString(HIGH_LOW_KEY, mHigh_low);
-
-            PutDataRequest request = dataMap.asPutDataRequest();
-            request.setUrgent();
-
-            Wearable.DataApi.putDataItem(mGoogleApiClient, request)
-                    .setResultCallback(new ResultCallback<DataApi.DataItemResult>() {
-                        @Override
-                        public void onResult(DataApi.DataItemResult dataItemResult) {
-                            Log.d(TAG, "Sending weather WFace was successful: " + dataItemResult.getStatus()
-                                    .isSuccess());
-                        }
-                    });
-        }
-    }
-
-    /**
-     * Builds an {@link com.google.android.gms.wearable.Asset} from a bitmap. The image that we get
-     * back from the camera in "data" is a thumbnail size. Typically, your image should not exceed
-     * 320x320 and if you want to have zoom and parallax effect in your app, limit the size of your
-     * image to 640x400. Resize your image before transferring to your wearable device.
-     */
-    private static Asset toAsset(Bitmap bitmap) {
-        ByteArrayOutputStream byteStream = null;
-        try {
-            byteStream = new ByteArrayOutputStream();
-            bitmap.compress(Bitmap.CompressFormat.PNG, 100, byteStream);
-            return Asset.createFromBytes(byteStream.toByteArray());
-        } finally {
-            if (null != byteStream) {
-                try {
-                    byteStream.close();
-                } catch (IOException e) {
-                    // ignore
-                }
+                mPendingWatchPayload = payload;
             }
         }
     }
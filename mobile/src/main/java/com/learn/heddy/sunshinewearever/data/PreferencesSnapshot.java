@@ -0,0 +1,71 @@
+package com.learn.heddy.sunshinewearever.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.learn.heddy.sunshinewearever.R;
+
+/**
+ * Immutable copy of every preference {@link SunshinePreferences} hands out, read in one go so the
+ * getters are field loads instead of a SharedPreferences lookup and a few resource reads each.
+ */
+
+final class PreferencesSnapshot {
+
+    /* Value of SunshinePreferences' generation counter when this was read */
+    final int generation;
+
+    final String location;
+    final boolean metric;
+
+    /* Both coordinates were stored; they read (0,0) otherwise */
+    final boolean hasCoordinates;
+    final double latitude;
+    final double longitude;
+
+    final boolean notificationsEnabled;
+    final long lastNotificationTime;
+
+    final long watchFacePayloadHash;
+    final long watchFaceLastPublishedTime;
+
+    private PreferencesSnapshot(int generation, String location, boolean metric,
+                                boolean hasCoordinates, double latitude, double longitude,
+                                boolean notificationsEnabled, long lastNotificationTime,
+                                long watchFacePayloadHash, long watchFaceLastPublishedTime) {
+        this.generation = generation;
+        this.location = location;
+        this.metric = metric;
+        this.hasCoordinates = hasCoordinates;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.notificationsEnabled = notificationsEnabled;
+        this.lastNotificationTime = lastNotificationTime;
+        this.watchFacePayloadHash = watchFacePayloadHash;
+        this.watchFaceLastPublishedTime = watchFaceLastPublishedTime;
+    }
+
+    /**
+     * Reads the preferences with the same keys and defaults the getters used to.
+     */
+    static PreferencesSnapshot read(Context context, SharedPreferences sp, int generation) {
+        String metricUnits = context.getString(R.string.pref_units_metric);
+        String units = sp.getString(context.getString(R.string.pref_units_key), metricUnits);
+
+        return new PreferencesSnapshot(generation,
+                sp.getString(context.getString(R.string.pref_location_key),
+                        context.getString(R.string.pref_location_default)),
+                metricUnits.equals(units),
+                sp.contains(SunshinePreferences.PREF_COORD_LAT)
+                        && sp.contains(SunshinePreferences.PREF_COORD_LONG),
+                Double.longBitsToDouble(sp.getLong(SunshinePreferences.PREF_COORD_LAT,
+                        Double.doubleToRawLongBits(0.0))),
+                Double.longBitsToDouble(sp.getLong(SunshinePreferences.PREF_COORD_LONG,
+                        Double.doubleToRawLongBits(0.0))),
+                sp.getBoolean(context.getString(R.string.pref_enable_notifications_key),
+                        context.getResources().getBoolean(R.bool.show_notifications_by_default)),
+                sp.getLong(context.getString(R.string.pref_last_notification), 0),
+                sp.getLong(context.getString(R.string.wf_payload_hash_key), 0),
+                sp.getLong(context.getString(R.string.wf_last_published_key), 0));
+    }
+}
@@ -6,9 +6,12 @@ import android.preference.PreferenceManager;
 
 import com.learn.heddy.sunshinewearever.R;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /*
  *  Starting with the Udacity starter code,
- *  added methods for the WatchFace project
+ *  added methods for the WatchFace project.
+ *  The getters read a PreferencesSnapshot, which is read again after any preference changed.
  */
 public class SunshinePreferences {
 
@@ -20,6 +23,53 @@ public class SunshinePreferences {
     public static final String PREF_COORD_LAT = "coord_lat";
     public static final String PREF_COORD_LONG = "coord_long";
 
+    /* Last snapshot read; it is stale once sGeneration has moved past its generation */
+    private static volatile PreferencesSnapshot sSnapshot;
+    private static final AtomicInteger sGeneration = new AtomicInteger();
+
+    /* Kept here since SharedPreferences only holds its listeners weakly */
+    private static SharedPreferences.OnSharedPreferenceChangeListener sChangeListener;
+    private static SharedPreferences sListenedPreferences;
+
+    private static PreferencesSnapshot getSnapshot(Context context) {
+        PreferencesSnapshot snapshot = sSnapshot;
+        int generation = sGeneration.get();
+        if (snapshot != null && snapshot.generation == generation) {
+            return snapshot;
+        }
+
+        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
+        synchronized (SunshinePreferences.class) {
+            if (sChangeListener == null) {
+                sChangeListener = new SharedPreferences.OnSharedPreferenceChangeListener() {
+                    @Override
+                    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences,
+                                                          String key) {
+                        invalidate();
+                    }
+                };
+            }
+            // The same instance for the whole process, but each test has its own
+            if (sp != sListenedPreferences) {
+                sp.registerOnSharedPreferenceChangeListener(sChangeListener);
+                sListenedPreferences = sp;
+            }
+        }
+
+        // Tagged with the generation from before the read, so a change during it makes it stale
+        snapshot = PreferencesSnapshot.read(context, sp, generation);
+        sSnapshot = snapshot;
+        return snapshot;
+    }
+
+    /*
+     * Makes the next get read the preferences again.  The writes below call this themselves, as
+     * the change listener only runs later on the main thread.
+     */
+    static void invalidate() {
+        sGeneration.incrementAndGet();
+    }
+
     /**
      * Helper method to handle setting location details in Preferences (city name, latitude,
      * longitude)
@@ -31,12 +81,19 @@ public class SunshinePreferences {
      * @param lon      the longitude of the city
      */
     public static void setLocationDetails(Context context, double lat, double lon) {
+        // Every sync reports the same city again, leave the preferences file alone then
+        PreferencesSnapshot snapshot = getSnapshot(context);
+        if (snapshot.hasCoordinates && snapshot.latitude == lat && snapshot.longitude == lon) {
+            return;
+        }
+
         SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
         SharedPreferences.Editor editor = sp.edit();
 
         editor.putLong(PREF_COORD_LAT, Double.doubleToRawLongBits(lat));
         editor.putLong(PREF_COORD_LONG, Double.doubleToRawLongBits(lon));
         editor.apply();
+        invalidate();
     }
 
     /**
@@ -51,6 +108,7 @@ public class SunshinePreferences {
         editor.remove(PREF_COORD_LAT);
         editor.remove(PREF_COORD_LONG);
         editor.apply();
+        invalidate();
     }
 
     /**
@@ -63,12 +121,7 @@ public class SunshinePreferences {
      * "94043,USA" if SharedPreferences have not been implemented yet.
      */
     public static String getPreferredWeatherLocation(Context context) {
-        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
-
-        String keyForLocation = context.getString(R.string.pref_location_key);
-        String defaultLocation = context.getString(R.string.pref_location_default);
-
-        return sp.getString(keyForLocation, defaultLocation);
+        return getSnapshot(context).location;
     }
 
     /**
@@ -78,19 +131,7 @@ public class SunshinePreferences {
      * @return true if metric display should be used, false if imperial display should be used
      */
     public static boolean isMetric(Context context) {
-        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
-
-        String keyForUnits = context.getString(R.string.pref_units_key);
-        String defaultUnits = context.getString(R.string.pref_units_metric);
-        String preferredUnits = sp.getString(keyForUnits, defaultUnits);
-        String metric = context.getString(R.string.pref_units_metric);
-
-        boolean userPrefersMetric = false;
-        if (metric.equals(preferredUnits)) {
-            userPrefersMetric = true;
-        }
-
-        return userPrefersMetric;
+        return getSnapshot(context).metric;
     }
 
     /**
@@ -102,25 +143,8 @@ public class SunshinePreferences {
      * @return an array containing the two coordinate values for the user's preferred location
      */
     public static double[] getLocationCoordinates(Context context) {
-        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
-
-        double[] preferredCoordinates = new double[2];
-
-        /*
-         * This is a hack we have to resort to since you can't store doubles in SharedPreferences.
-         *
-         * Double.doubleToLongBits returns an integer corresponding to the bits of the given
-         * IEEE 754 double precision value.
-         *
-         * Double.longBitsToDouble does the opposite, converting a long (that represents a double)
-         * into the double itself.
-         */
-        preferredCoordinates[0] = Double
-                .longBitsToDouble(sp.getLong(PREF_COORD_LAT, Double.doubleToRawLongBits(0.0)));
-        preferredCoordinates[1] = Double
-                .longBitsToDouble(sp.getLong(PREF_COORD_LONG, Double.doubleToRawLongBits(0.0)));
-
-        return preferredCoordinates;
+        PreferencesSnapshot snapshot = getSnapshot(context);
+        return new double[]{snapshot.latitude, snapshot.longitude};
     }
 
     /**
@@ -131,17 +155,7 @@ public class SunshinePreferences {
      * @return true if lat/long are saved in SharedPreferences
      */
     public static boolean isLocationLatLonAvailable(Context context) {
-        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
-
-        boolean spContainLatitude = sp.contains(PREF_COORD_LAT);
-        boolean spContainLongitude = sp.contains(PREF_COORD_LONG);
-
-        boolean spContainBothLatitudeAndLongitude = false;
-        if (spContainLatitude && spContainLongitude) {
-            spContainBothLatitudeAndLongitude = true;
-        }
-
-        return spContainBothLatitudeAndLongitude;
+        return getSnapshot(context).hasCoordinates;
     }
 
     /**
@@ -152,26 +166,7 @@ public class SunshinePreferences {
      * @return true if the user prefers to see notifications, false otherwise
      */
     public static boolean areNotificationsEnabled(Context context) {
-        /* Key for accessing the preference for showing notifications */
-        String displayNotificationsKey = context.getString(R.string.pref_enable_notifications_key);
-
-        /*
-         * In Sunshine, the user has the ability to say whether she would like notifications
-         * enabled or not. If no preference has been chosen, we want to be able to determine
-         * whether or not to show them. To do this, we reference a bool stored in bools.xml.
-         */
-        boolean shouldDisplayNotificationsByDefault = context
-                .getResources()
-                .getBoolean(R.bool.show_notifications_by_default);
-
-        /* As usual, we use the default SharedPreferences to access the user's preferences */
-        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
-
-        /* If a value is stored with the key, we extract it here. If not, use a default. */
-        boolean shouldDisplayNotifications = sp
-                .getBoolean(displayNotificationsKey, shouldDisplayNotificationsByDefault);
-
-        return shouldDisplayNotifications;
+        return getSnapshot(context).notificationsEnabled;
     }
 
     /**
@@ -181,25 +176,11 @@ public class SunshinePreferences {
      * @return UNIX time of when the last notification was shown
      */
     public static long getLastNotificationTimeInMillis(Context context) {
-        /* Key for accessing the time at which Sunshine last displayed a notification */
-        String lastNotificationKey = context.getString(R.string.pref_last_notification);
-
-        /* As usual, we use the default SharedPreferences to access the user's preferences */
-        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
-
         /*
-         * Here, we retrieve the time in milliseconds when the last notification was shown. If
-         * SharedPreferences doesn't have a value for lastNotificationKey, we return 0. The reason
-         * we return 0 is because we compare the value returned from this method to the current
-         * system time. If the difference between the last notification time and the current time
-         * is greater than one day, we will show a notification again. When we compare the two
-         * values, we subtract the last notification time from the current system time. If the
-         * time of the last notification was 0, the difference will always be greater than the
-         * number of milliseconds in a day and we will show another notification.
+         * 0 if no notification was shown yet, which makes the time since the last one always
+         * greater than a day, so a notification is shown.
          */
-        long lastNotificationTime = sp.getLong(lastNotificationKey, 0);
-
-        return lastNotificationTime;
+        return getSnapshot(context).lastNotificationTime;
     }
 
     /**
@@ -230,37 +211,39 @@ public class SunshinePreferences {
         String lastNotificationKey = context.getString(R.string.pref_last_notification);
         editor.putLong(lastNotificationKey, timeOfNotification);
         editor.apply();
+        invalidate();
     }
 
     /**
-     * Methods for WatchFace to save and retrieve values that are used
-     * to determine whether or not to send Data to the Watch
+     * Saves what was last sent to the WatchFace, by either the sync or the app, so an unchanged
+     * forecast is not sent again.
+     *
+     * @param context Used to access SharedPreferences
+     * @param payloadHash Hash of the sent payload, 0 to send the next one regardless
+     * @param timeOfPublish Time of the publish to save (in UNIX time)
      */
-    public static void saveWatchFaceData(Context context, int dateAsInt, String location, boolean wfunit){
+    public static void saveWatchFacePublish(Context context, long payloadHash, long timeOfPublish) {
         SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
         SharedPreferences.Editor editor = sp.edit();
-
-        editor.putString(context.getString(R.string.wf_location_key), location);
-        editor.putInt(context.getString(R.string.wf_date_as_int_key), dateAsInt);
-        editor.putBoolean(context.getString(R.string.wf_ismetric_key), wfunit);
+        editor.putLong(context.getString(R.string.wf_payload_hash_key), payloadHash);
+        editor.putLong(context.getString(R.string.wf_last_published_key), timeOfPublish);
         editor.apply();
+        invalidate();
     }
 
-    public static String retrieveWatchFaceLocation(Context context){
-        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
-
-        return sp.getString(context.getString(R.string.wf_location_key), getPreferredWeatherLocation(context));
-    }
-
-    public static int retrieveWatchFaceDateInt(Context context){
-        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
-
-        return sp.getInt(context.getString(R.string.wf_date_as_int_key), R.integer.wf_default_date);
+    /**
+     * @param context Used to access SharedPreferences
+     * @return hash of the payload last sent to the WatchFace, 0 if there was none
+     */
+    public static long getWatchFacePayloadHash(Context context) {
+        return getSnapshot(context).watchFacePayloadHash;
     }
 
-    public static boolean retrieveWatchFaceMetricChosen(Context context){
-        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
-
-        return sp.getBoolean(context.getString(R.string.wf_ismetric_key), true);
+    /**
+     * @param context Used to access SharedPreferences
+     * @return UNIX time of the last send to the WatchFace, 0 if there was none
+     */
+    public static long getWatchFaceLastPublishedTime(Context context) {
+        return getSnapshot(context).watchFaceLastPublishedTime;
     }
 }
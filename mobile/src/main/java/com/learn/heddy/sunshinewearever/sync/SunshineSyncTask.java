@@ -20,16 +20,19 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.text.format.DateUtils;
 
+import com.learn.heddy.sunshinewearever.ForecastSnapshotFile;
 import com.learn.heddy.sunshinewearever.data.SunshinePreferences;
 import com.learn.heddy.sunshinewearever.data.WeatherContract;
 import com.learn.heddy.sunshinewearever.utilities.NetworkUtils;
 import com.learn.heddy.sunshinewearever.utilities.NotificationUtils;
 import com.learn.heddy.sunshinewearever.utilities.OpenWeatherJsonUtils;
+import com.learn.heddy.sunshinewearever.watchface.WatchFacePublisher;
 
 import java.net.URL;
 
 /*
- *  Note: This file is the Udacity starter code as-is
+ *  Note: This file is the Udacity starter code,
+ *  except for the WatchFace publish and the forecast snapshot at the end of a successful sync
  */
 public class SunshineSyncTask {
 
@@ -107,6 +110,15 @@ public class SunshineSyncTask {
                     NotificationUtils.notifyUserOfNewWeather(context);
                 }
 
+                /*
+                 * Send the fresh forecast to the WatchFace from here, so the Watch doesn't wait
+                 * for the app to be opened. The values are the ones just inserted.
+                 */
+                WatchFacePublisher.getInstance(context).publishFromSync(weatherValues);
+
+                /* And for the next cold start of the app, which lists this file right away */
+                ForecastSnapshotFile.writeFromProvider(context);
+
             /* If the code reaches this point, we have successfully performed our sync */
 
             }
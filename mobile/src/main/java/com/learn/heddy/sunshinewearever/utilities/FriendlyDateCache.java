@@ -0,0 +1,99 @@
+package com.learn.heddy.sunshinewearever.utilities;
+
+import android.content.Context;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Remembers the labels of {@link SunshineDateUtils#getFriendlyDateString}, keyed by normalized
+ * UTC day, so each label is formatted once a day instead of on every bind.
+ *
+ * A label depends on which day is today, on the time zone and on the locale, so the whole cache
+ * is dropped at the next midnight (local, or UTC which the utilities count today's day number
+ * in, whichever comes first) and when the default time zone or locale changed.
+ */
+
+class FriendlyDateCache {
+
+    // Source of the current time, System.currentTimeMillis() outside of tests
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private final Clock mClock;
+
+    /* Labels by normalized date, plus one for the full date variant */
+    private final Map<Long, String> mLabels = new HashMap<>();
+
+    private long mValidUntil = Long.MIN_VALUE;
+    private String mTimeZoneId;
+    private Locale mLocale;
+
+    FriendlyDateCache(Clock clock) {
+        mClock = clock;
+    }
+
+    /**
+     * @return the cached label, or a newly formatted one
+     */
+    synchronized String get(Context context, long normalizedUtcMidnight, boolean showFullDate) {
+        long now = mClock.currentTimeMillis();
+        TimeZone timeZone = TimeZone.getDefault();
+        Locale locale = Locale.getDefault();
+        if (now >= mValidUntil || !timeZone.getID().equals(mTimeZoneId)
+                || !locale.equals(mLocale)) {
+            mLabels.clear();
+            mValidUntil = nextMidnight(now, timeZone);
+            mTimeZoneId = timeZone.getID();
+            mLocale = locale;
+        }
+
+        // Normalized dates are whole days, so the odd key can't belong to another date
+        Long key = showFullDate ? normalizedUtcMidnight + 1 : normalizedUtcMidnight;
+        String label = mLabels.get(key);
+        if (label == null) {
+            label = createLabel(context, normalizedUtcMidnight, showFullDate);
+            mLabels.put(key, label);
+        }
+        return label;
+    }
+
+    // Formats a label the cache doesn't have yet
+    String createLabel(Context context, long normalizedUtcMidnight, boolean showFullDate) {
+        return SunshineDateUtils.formatFriendlyDateString(context, normalizedUtcMidnight,
+                showFullDate);
+    }
+
+    /*
+     * The first local or UTC midnight after now.
+     */
+    static long nextMidnight(long now, TimeZone timeZone) {
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.setTimeInMillis(now);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        long localMidnight = calendar.getTimeInMillis();
+
+        long utcDay = now / SunshineDateUtils.DAY_IN_MILLIS;
+        if (now % SunshineDateUtils.DAY_IN_MILLIS < 0) {
+            utcDay--;
+        }
+        long utcMidnight = (utcDay + 1) * SunshineDateUtils.DAY_IN_MILLIS;
+
+        return Math.min(localMidnight, utcMidnight);
+    }
+}
@@ -25,13 +25,17 @@ import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 /*
- *  Note: This file is the Udacity starter code as-is
+ *  Note: This file is the Udacity starter code, with a cache in front of the friendly dates
  */
 public final class SunshineDateUtils  {
 
     /* Milliseconds in a day */
     public static final long DAY_IN_MILLIS = TimeUnit.DAYS.toMillis(1);
 
+    /* Labels of getFriendlyDateString(), made once a day */
+    private static final FriendlyDateCache sFriendlyDates =
+            new FriendlyDateCache(FriendlyDateCache.SYSTEM_CLOCK);
+
     /**
      * This method returns the number of milliseconds (UTC time) for today's date at midnight in
      * the local time zone. For example, if you live in California and the day is September 20th,
@@ -199,6 +203,14 @@ public final class SunshineDateUtils  {
      * or "Friday"
      */
     public static String getFriendlyDateString(Context context, long normalizedUtcMidnight, boolean showFullDate) {
+        /* Each label is only formatted once a day, see FriendlyDateCache */
+        return sFriendlyDates.get(context, normalizedUtcMidnight, showFullDate);
+    }
+
+    /*
+     * Formats the label of getFriendlyDateString(), without the cache.
+     */
+    static String formatFriendlyDateString(Context context, long normalizedUtcMidnight, boolean showFullDate) {
 
         /*
          * NOTE: localDate should be localDateMidnightMillis and should be straight from the
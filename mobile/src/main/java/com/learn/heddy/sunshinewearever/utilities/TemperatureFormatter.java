@@ -0,0 +1,129 @@
+package com.learn.heddy.sunshinewearever.utilities;
+
+import android.content.Context;
+
+import com.learn.heddy.sunshinewearever.R;
+import com.learn.heddy.sunshinewearever.data.SunshinePreferences;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formats temperatures for display ("21°") in the user's units without reading the preferences
+ * or calling String.format each time.  One instance is built per unit and locale: it splits the
+ * format_temperature pattern around its number once, and caches the strings of the usual range
+ * of rounded values.
+ *
+ * {@link #getInstance(Context)} rebuilds the instance when the units from
+ * {@link SunshinePreferences#isMetric(Context)}, itself a cached read, or the locale no longer
+ * match it.  There is no listener of its own, whose order against the preferences' one could
+ * leave a formatter built from stale units.
+ */
+
+public final class TemperatureFormatter {
+
+    /* The number placeholder of R.string.format_temperature */
+    private static final String NUMBER_FORMAT = "%1.0f";
+
+    /* Cached range of rounded values, covers both units for any weather on earth */
+    private static final int MIN_CACHED = -100;
+    private static final int MAX_CACHED = 150;
+
+    /* Beyond this String.format is left to print the digits (and infinity) */
+    private static final double MAX_PLAIN = 1e15;
+
+    private static volatile TemperatureFormatter sInstance;
+
+    private final String mPattern;
+    private final boolean mMetric;
+    private final Locale mLocale;
+
+    /* Text around the number, null when the pattern or the locale's digits need String.format */
+    private final String mPrefix;
+    private final String mSuffix;
+
+    private final String[] mCache = new String[MAX_CACHED - MIN_CACHED + 1];
+
+    private TemperatureFormatter(String pattern, boolean metric, Locale locale) {
+        mPattern = pattern;
+        mMetric = metric;
+        mLocale = locale;
+
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        int number = pattern.indexOf(NUMBER_FORMAT);
+        if (number >= 0 && pattern.indexOf('%', number + NUMBER_FORMAT.length()) < 0
+                && pattern.lastIndexOf('%', number - 1) < 0 && symbols.getZeroDigit() == '0') {
+            mPrefix = pattern.substring(0, number);
+            mSuffix = pattern.substring(number + NUMBER_FORMAT.length());
+        } else {
+            mPrefix = null;
+            mSuffix = null;
+        }
+    }
+
+    /**
+     * @return the formatter for the current units and locale
+     */
+    public static TemperatureFormatter getInstance(Context context) {
+        boolean metric = SunshinePreferences.isMetric(context);
+        Locale locale = Locale.getDefault();
+        TemperatureFormatter formatter = sInstance;
+        if (formatter != null && formatter.mMetric == metric && formatter.mLocale.equals(locale)) {
+            return formatter;
+        }
+
+        formatter = new TemperatureFormatter(context.getString(R.string.format_temperature),
+                metric, locale);
+        sInstance = formatter;
+        return formatter;
+    }
+
+    // For local tests, which have no Context
+    static TemperatureFormatter create(String pattern, boolean metric, Locale locale) {
+        return new TemperatureFormatter(pattern, metric, locale);
+    }
+
+    public boolean isMetric() {
+        return mMetric;
+    }
+
+    /**
+     * @param celsius temperature in degrees Celsius
+     * @return the temperature in the user's units, formatted like format_temperature, e.g. "21°"
+     */
+    public String format(double celsius) {
+        double temperature = mMetric ? celsius : (celsius * 1.8) + 32;
+        if (mPrefix == null || Double.isNaN(temperature)
+                || Math.abs(temperature) >= MAX_PLAIN) {
+            return String.format(mLocale, mPattern, temperature);
+        }
+
+        // Half away from zero, as "%1.0f" rounds
+        long rounded = Math.round(Math.abs(temperature));
+        boolean negative = temperature < 0;
+        if (negative && rounded == 0) {
+            return mPrefix + "-0" + mSuffix;
+        }
+        if (rounded > MAX_CACHED || (negative && rounded > -MIN_CACHED)) {
+            return build(negative, rounded);
+        }
+
+        // Racing threads may both build the string; either result is the same
+        int index = (int) (negative ? -rounded : rounded) - MIN_CACHED;
+        String cached = mCache[index];
+        if (cached == null) {
+            cached = build(negative, rounded);
+            mCache[index] = cached;
+        }
+        return cached;
+    }
+
+    private String build(boolean negative, long rounded) {
+        StringBuilder text = new StringBuilder(mPrefix.length() + 21 + mSuffix.length());
+        text.append(mPrefix);
+        if (negative) {
+            text.append('-');
+        }
+        return text.append(rounded).append(mSuffix).toString();
+    }
+}
@@ -0,0 +1,154 @@
+package com.learn.heddy.sunshinewearever.utilities;
+
+import com.learn.heddy.sunshinewearever.R;
+
+/**
+ * The OpenWeatherMap condition mapping of {@link SunshineWeatherUtils} as one table over the
+ * 0-999 ID space, built once, so the description and both icons of an ID come from a single
+ * array access instead of walking the range comparisons on every bind.
+ *
+ * The ranges below are entered in the order the old if/else chains tested them, and an ID keeps
+ * the first match, so the table gives exactly what the chains gave.
+ */
+
+final class WeatherConditionTable {
+
+    /* Condition IDs are three digits */
+    static final int SIZE = 1000;
+
+    // The resources of one condition ID, 0 where the ID has none
+    static final class Condition {
+        final int descriptionResId;
+        final int smallArtResId;
+        final int largeArtResId;
+
+        Condition(int descriptionResId, int smallArtResId, int largeArtResId) {
+            this.descriptionResId = descriptionResId;
+            this.smallArtResId = smallArtResId;
+            this.largeArtResId = largeArtResId;
+        }
+    }
+
+    private static final Condition[] CONDITIONS = build();
+
+    private WeatherConditionTable() {
+    }
+
+    /**
+     * @return the resources of the condition ID, null if it has none at all
+     */
+    static Condition get(int weatherId) {
+        if (weatherId < 0 || weatherId >= SIZE) {
+            return null;
+        }
+        return CONDITIONS[weatherId];
+    }
+
+    private static Condition[] build() {
+        int[] descriptions = new int[SIZE];
+        int[] smallArt = new int[SIZE];
+        int[] largeArt = new int[SIZE];
+
+        describe(descriptions, 200, 232, R.string.condition_2xx);
+        describe(descriptions, 300, 321, R.string.condition_3xx);
+        describe(descriptions, 500, R.string.condition_500);
+        describe(descriptions, 501, R.string.condition_501);
+        describe(descriptions, 502, R.string.condition_502);
+        describe(descriptions, 503, R.string.condition_503);
+        describe(descriptions, 504, R.string.condition_504);
+        describe(descriptions, 511, R.string.condition_511);
+        describe(descriptions, 520, R.string.condition_520);
+        describe(descriptions, 531, R.string.condition_531);
+        describe(descriptions, 600, R.string.condition_600);
+        describe(descriptions, 601, R.string.condition_601);
+        describe(descriptions, 602, R.string.condition_602);
+        describe(descriptions, 611, R.string.condition_611);
+        describe(descriptions, 612, R.string.condition_612);
+        describe(descriptions, 615, R.string.condition_615);
+        describe(descriptions, 616, R.string.condition_616);
+        describe(descriptions, 620, R.string.condition_620);
+        describe(descriptions, 621, R.string.condition_621);
+        describe(descriptions, 622, R.string.condition_622);
+        describe(descriptions, 701, R.string.condition_701);
+        describe(descriptions, 711, R.string.condition_711);
+        describe(descriptions, 721, R.string.condition_721);
+        describe(descriptions, 731, R.string.condition_731);
+        describe(descriptions, 741, R.string.condition_741);
+        describe(descriptions, 751, R.string.condition_751);
+        describe(descriptions, 761, R.string.condition_761);
+        describe(descriptions, 762, R.string.condition_762);
+        describe(descriptions, 771, R.string.condition_771);
+        describe(descriptions, 781, R.string.condition_781);
+        describe(descriptions, 800, R.string.condition_800);
+        describe(descriptions, 801, R.string.condition_801);
+        describe(descriptions, 802, R.string.condition_802);
+        describe(descriptions, 803, R.string.condition_803);
+        describe(descriptions, 804, R.string.condition_804);
+        describe(descriptions, 900, R.string.condition_900);
+        describe(descriptions, 901, R.string.condition_901);
+        describe(descriptions, 902, R.string.condition_902);
+        describe(descriptions, 903, R.string.condition_903);
+        describe(descriptions, 904, R.string.condition_904);
+        describe(descriptions, 905, R.string.condition_905);
+        describe(descriptions, 906, R.string.condition_906);
+        describe(descriptions, 951, R.string.condition_951);
+        describe(descriptions, 952, R.string.condition_952);
+        describe(descriptions, 953, R.string.condition_953);
+        describe(descriptions, 954, R.string.condition_954);
+        describe(descriptions, 955, R.string.condition_955);
+        describe(descriptions, 956, R.string.condition_956);
+        describe(descriptions, 957, R.string.condition_957);
+        describe(descriptions, 958, R.string.condition_958);
+        describe(descriptions, 959, R.string.condition_959);
+        describe(descriptions, 960, R.string.condition_960);
+        describe(descriptions, 961, R.string.condition_961);
+        describe(descriptions, 962, R.string.condition_962);
+
+        draw(smallArt, largeArt, 200, 232, R.drawable.ic_storm, R.drawable.art_storm);
+        draw(smallArt, largeArt, 300, 321, R.drawable.ic_light_rain, R.drawable.art_light_rain);
+        draw(smallArt, largeArt, 500, 504, R.drawable.ic_rain, R.drawable.art_rain);
+        draw(smallArt, largeArt, 511, 511, R.drawable.ic_snow, R.drawable.art_snow);
+        draw(smallArt, largeArt, 520, 531, R.drawable.ic_rain, R.drawable.art_rain);
+        draw(smallArt, largeArt, 600, 622, R.drawable.ic_snow, R.drawable.art_snow);
+        draw(smallArt, largeArt, 701, 761, R.drawable.ic_fog, R.drawable.art_fog);
+        draw(smallArt, largeArt, 771, 771, R.drawable.ic_storm, R.drawable.art_storm);
+        draw(smallArt, largeArt, 781, 781, R.drawable.ic_storm, R.drawable.art_storm);
+        draw(smallArt, largeArt, 800, 800, R.drawable.ic_clear, R.drawable.art_clear);
+        draw(smallArt, largeArt, 801, 801, R.drawable.ic_light_clouds,
+                R.drawable.art_light_clouds);
+        draw(smallArt, largeArt, 802, 804, R.drawable.ic_cloudy, R.drawable.art_clouds);
+        draw(smallArt, largeArt, 900, 906, R.drawable.ic_storm, R.drawable.art_storm);
+        draw(smallArt, largeArt, 958, 962, R.drawable.ic_storm, R.drawable.art_storm);
+        draw(smallArt, largeArt, 951, 957, R.drawable.ic_clear, R.drawable.art_clear);
+
+        Condition[] conditions = new Condition[SIZE];
+        for (int id = 0; id < SIZE; id++) {
+            if (descriptions[id] != 0 || smallArt[id] != 0) {
+                conditions[id] = new Condition(descriptions[id], smallArt[id], largeArt[id]);
+            }
+        }
+        return conditions;
+    }
+
+    private static void describe(int[] descriptions, int id, int stringResId) {
+        describe(descriptions, id, id, stringResId);
+    }
+
+    private static void describe(int[] descriptions, int from, int to, int stringResId) {
+        for (int id = from; id <= to; id++) {
+            if (descriptions[id] == 0) {
+                descriptions[id] = stringResId;
+            }
+        }
+    }
+
+    private static void draw(int[] smallArt, int[] largeArt, int from, int to,
+                             int smallResId, int largeResId) {
+        for (int id = from; id <= to; id++) {
+            if (smallArt[id] == 0) {
+                smallArt[id] = smallResId;
+                largeArt[id] = largeResId;
+            }
+        }
+    }
+}
@@ -0,0 +1,500 @@
+package com.learn.heddy.sunshinewearever.watchface;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.wearable.DataApi;
+import com.google.android.gms.wearable.DataItem;
+import com.google.android.gms.wearable.DataItemBuffer;
+import com.google.android.gms.wearable.PutDataMapRequest;
+import com.google.android.gms.wearable.PutDataRequest;
+import com.google.android.gms.wearable.Wearable;
+import com.learn.heddy.sunshinewearever.data.SunshinePreferences;
+import com.learn.heddy.sunshinewearever.data.WeatherContract;
+import com.learn.heddy.sunshinewearever.utilities.SunshineDateUtils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Process-wide publisher of the forecast to the WatchFace.  Used at the end of every background
+ * sync, so the Watch stays current even when the Phone app is never opened, and by MainActivity
+ * when its data or the unit preference changed.
+ *
+ * A publish whose {@link WatchForecastDelta#contentHash} matches the last one sent is suppressed;
+ * the hash is kept in SharedPreferences, once all of its DataItems are put, so this holds across
+ * process restarts.  Other publishes only queue the DataItems that {@link WatchForecastDelta}
+ * finds changed.  One background thread connects a single, kept-connected
+ * {@link GoogleApiClient} and drains the queue, so nothing is put before the connection is up.
+ * The queue holds at most one operation per path, the latest one wins, and is bounded; when it
+ * overflows the oldest operation is dropped and the next publish is full again.  A failed put
+ * or delete goes back to the head of the queue and the drain stops there, to go on with the
+ * next publish.  After a full publish the day items in the Data Layer that it didn't send, left
+ * by earlier processes, are deleted.
+ */
+public class WatchFacePublisher {
+    private static final String TAG = "WatchFacePublisher";
+
+    public static final String SOURCE_SYNC = "sync";
+    public static final String SOURCE_UI = "ui";
+
+    /* A full sync is 14 days and the header, plus room for deletes */
+    private static final int MAX_PENDING = 32;
+
+    private static final long CONNECT_TIMEOUT_SECONDS = 30;
+    private static final long PUT_TIMEOUT_SECONDS = 30;
+
+    private static WatchFacePublisher sInstance;
+
+    private final Context mContext;
+    private final GoogleApiClient mGoogleApiClient;
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    private final WatchForecastDelta mWatchForecastDelta = new WatchForecastDelta();
+
+    private final AtomicReference<PendingPayload> mLatestPayload = new AtomicReference<>();
+
+    /* Pending operations by path, guarded by this; null bytes delete the DataItem */
+    private final LinkedHashMap<String, PendingOperation> mPending = new LinkedHashMap<>();
+
+    /* Hash of the last payload queued, 0 until read from SharedPreferences; guarded by this */
+    private long mPublishedHash;
+    private boolean mPublishedHashLoaded;
+
+    /* Hash and time of a payload queued but not all put yet; guarded by this */
+    private boolean mHasUnsavedPublish;
+    private long mUnsavedHash;
+    private long mUnsavedTimestampMillis;
+
+    /* forgetPublished() ran and the saved hash still has to be cleared; guarded by this */
+    private boolean mClearSavedHash;
+
+    /* Old day items may be left in the Data Layer after a full publish; guarded by this */
+    private boolean mPruneDays;
+
+    /* Metrics, guarded by this */
+    private int mPublishCount;
+    private int mSuppressedCount;
+    private int mSentCount;
+    private int mFailedCount;
+    private int mCoalescedCount;
+    private int mDroppedCount;
+    private long mTotalLatencyMs;
+    private long mMaxLatencyMs;
+
+    // A publish not yet picked up by mExecutor
+    private static class PendingPayload {
+        final WatchPayload payload;
+        final String source;
+
+        PendingPayload(WatchPayload payload, String source) {
+            this.payload = payload;
+            this.source = source;
+        }
+    }
+
+    // One queued put or delete
+    private static class PendingOperation {
+        final byte[] payloadBytes;
+        final long enqueuedAtMs;
+
+        PendingOperation(byte[] payloadBytes, long enqueuedAtMs) {
+            this.payloadBytes = payloadBytes;
+            this.enqueuedAtMs = enqueuedAtMs;
+        }
+    }
+
+    private WatchFacePublisher(Context context) {
+        mContext = context.getApplicationContext();
+        mGoogleApiClient = new GoogleApiClient.Builder(mContext)
+                .addApi(Wearable.API)
+                .build();
+    }
+
+    public static synchronized WatchFacePublisher getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new WatchFacePublisher(context);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Builds the payload from the values the sync just parsed and publishes it, waiting until
+     * the queue is drained so the sync job isn't reported finished before the Watch has its
+     * data.  Called on the sync thread, never on the main thread.
+     *
+     * @param weatherValues the values inserted into the ContentProvider by the sync
+     */
+    public void publishFromSync(ContentValues[] weatherValues) {
+        WatchPayload payload = fromContentValues(weatherValues,
+                SunshinePreferences.isMetric(mContext), System.currentTimeMillis());
+
+        Future<?> drained = publish(payload, SOURCE_SYNC);
+        try {
+            drained.get(CONNECT_TIMEOUT_SECONDS + PUT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            Log.e(TAG, "Watch publish did not complete: " + e);
+        }
+    }
+
+    /**
+     * Queues the payload for the background thread and returns immediately, so callers on the
+     * main thread never hash, encode or touch SharedPreferences for the Watch.  Safe to call
+     * from any thread.
+     *
+     * @param source SOURCE_SYNC or SOURCE_UI, for the logs
+     * @return completes once the payload is queued and the queue has been drained
+     */
+    public Future<?> publish(WatchPayload payload, String source) {
+        // A payload not picked up yet is replaced, the latest one wins here too
+        if (mLatestPayload.getAndSet(new PendingPayload(payload, source)) != null) {
+            synchronized (this) {
+                mCoalescedCount++;
+            }
+        }
+        return mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                PendingPayload pending = mLatestPayload.getAndSet(null);
+                if (pending != null) {
+                    queuePayload(pending.payload, pending.source);
+                }
+                drain();
+            }
+        });
+    }
+
+    /*
+     * Runs on mExecutor.  Unless the payload's hash matches the last one sent, queues the
+     * DataItems of the days that changed since the last publish.
+     */
+    private void queuePayload(WatchPayload payload, String source) {
+        long hash = WatchForecastDelta.contentHash(payload);
+        boolean suppressed;
+        synchronized (this) {
+            if (!mPublishedHashLoaded) {
+                mPublishedHash = SunshinePreferences.getWatchFacePayloadHash(mContext);
+                mPublishedHashLoaded = true;
+            }
+            suppressed = hash == mPublishedHash;
+            if (suppressed) {
+                mSuppressedCount++;
+            } else {
+                mPublishCount++;
+                mPublishedHash = hash;
+            }
+        }
+
+        long lastPublished = SunshinePreferences.getWatchFaceLastPublishedTime(mContext);
+        WatchForecastDelta.Delta delta = suppressed ? null : mWatchForecastDelta.compute(payload);
+        if (suppressed || delta.isEmpty()) {
+            Log.d(TAG, "Watch up to date (" + source + "), last published "
+                    + formatAge(lastPublished, payload.timestampMillis));
+        } else {
+            long now = SystemClock.elapsedRealtime();
+            synchronized (this) {
+                // Saved by drain() once these are put, cleared by forgetPublished()
+                mHasUnsavedPublish = true;
+                mUnsavedHash = hash;
+                mUnsavedTimestampMillis = payload.timestampMillis;
+                for (Map.Entry<Long, byte[]> day : delta.changedDays.entrySet()) {
+                    enqueue(WatchForecastDelta.dayPath(day.getKey()), day.getValue(), now);
+                }
+                for (Long date : delta.removedDates) {
+                    enqueue(WatchForecastDelta.dayPath(date), null, now);
+                }
+                // The header goes with every change, it carries the unit and the time of the sync
+                enqueue(WatchForecastDelta.PATH_FORECAST, delta.header, now);
+                if (delta.full) {
+                    mPruneDays = true;
+                }
+            }
+            saveForgottenPublish();
+
+            // Staleness: how long the Watch went without an update before this one
+            Log.d(TAG, "Watch sync " + (delta.full ? "full" : "delta") + " (" + source + "): "
+                    + delta.changedDays.size() + " of " + payload.days.size() + " days, "
+                    + delta.removedDates.size() + " removed, "
+                    + delta.getPayloadBytes() + " payload bytes; "
+                    + "previous data published " + formatAge(lastPublished, payload.timestampMillis));
+        }
+    }
+
+    /**
+     * @return counts and latencies of the sent operations so far, for the logs
+     */
+    public synchronized String getStats() {
+        long averageLatencyMs = mSentCount > 0 ? mTotalLatencyMs / mSentCount : 0;
+        return "publishes " + mPublishCount + ", suppressed " + mSuppressedCount
+                + ", sent " + mSentCount + ", failed " + mFailedCount
+                + ", coalesced " + mCoalescedCount + ", dropped " + mDroppedCount
+                + ", pending " + mPending.size()
+                + ", latency avg " + averageLatencyMs + " ms max " + mMaxLatencyMs + " ms";
+    }
+
+    /*
+     * Latest operation per path wins; a full queue drops its oldest operation.  Called with the
+     * lock held.
+     */
+    private void enqueue(String path, byte[] payloadBytes, long now) {
+        if (mPending.remove(path) != null) {
+            mCoalescedCount++;
+        } else if (mPending.size() >= MAX_PENDING) {
+            Iterator<String> oldest = mPending.keySet().iterator();
+            Log.w(TAG, "Watch publish queue full, dropping " + oldest.next());
+            oldest.remove();
+            mDroppedCount++;
+            // The Watch will miss that change, so send everything next time
+            forgetPublished();
+        }
+        mPending.put(path, new PendingOperation(payloadBytes, now));
+    }
+
+    /*
+     * Runs on mExecutor.  Puts the pending operations in order until the queue is empty; they
+     * stay queued while there is no connection, or after one fails, and go out in the same order
+     * with the next publish.  Only once the queue is empty is the hash of the queued payload
+     * saved, so a process that dies before the puts doesn't suppress the same payload later.
+     */
+    private void drain() {
+        if (!ensureConnected()) {
+            return;
+        }
+
+        while (true) {
+            String path;
+            PendingOperation operation;
+            synchronized (this) {
+                Iterator<Map.Entry<String, PendingOperation>> next = mPending.entrySet().iterator();
+                if (!next.hasNext()) {
+                    break;
+                }
+                Map.Entry<String, PendingOperation> entry = next.next();
+                next.remove();
+                path = entry.getKey();
+                operation = entry.getValue();
+            }
+
+            Status status = operation.payloadBytes != null
+                    ? put(path, operation.payloadBytes)
+                    : delete(path);
+            long latencyMs = SystemClock.elapsedRealtime() - operation.enqueuedAtMs;
+
+            synchronized (this) {
+                if (!status.isSuccess()) {
+                    Log.e(TAG, "Failed to send " + path + ": " + status);
+                    mFailedCount++;
+                    requeueFirst(path, operation);
+                    Log.d(TAG, "Watch publish queue stopped: " + getStats());
+                    return;
+                }
+                mSentCount++;
+                mTotalLatencyMs += latencyMs;
+                mMaxLatencyMs = Math.max(mMaxLatencyMs, latencyMs);
+            }
+        }
+        Log.d(TAG, "Watch publish queue drained: " + getStats());
+
+        long hash = 0;
+        long timestampMillis = 0;
+        synchronized (this) {
+            if (mHasUnsavedPublish && mPending.isEmpty()) {
+                mHasUnsavedPublish = false;
+                hash = mUnsavedHash;
+                timestampMillis = mUnsavedTimestampMillis;
+            }
+        }
+        if (hash != 0) {
+            SunshinePreferences.saveWatchFacePublish(mContext, hash, timestampMillis);
+        }
+
+        boolean pruneDays;
+        synchronized (this) {
+            pruneDays = mPruneDays;
+        }
+        if (pruneDays && pruneDays()) {
+            synchronized (this) {
+                mPruneDays = false;
+            }
+        }
+    }
+
+    /*
+     * Puts a failed operation back in front of the queue, unless a newer one for its path was
+     * queued meanwhile.  Called with the lock held.
+     */
+    private void requeueFirst(String path, PendingOperation operation) {
+        if (mPending.containsKey(path)) {
+            return;
+        }
+        LinkedHashMap<String, PendingOperation> rest = new LinkedHashMap<>(mPending);
+        mPending.clear();
+        mPending.put(path, operation);
+        mPending.putAll(rest);
+    }
+
+    /*
+     * Runs on mExecutor once a full publish is drained.  The delta only knows the days sent by
+     * this process, so list the day items in the Data Layer and delete every one it didn't send.
+     * Returns false to try again with the next drain.
+     */
+    private boolean pruneDays() {
+        Set<Long> sentDates = mWatchForecastDelta.getSentDates();
+        if (sentDates.isEmpty()) {
+            // The queue overflowed and the delta was reset, the next full publish prunes
+            return false;
+        }
+
+        Uri uri = new Uri.Builder()
+                .scheme(PutDataRequest.WEAR_URI_SCHEME)
+                .path(WatchForecastDelta.PATH_DAY_PREFIX)
+                .build();
+        List<String> stalePaths = new ArrayList<>();
+        DataItemBuffer dataItems = Wearable.DataApi.getDataItems(mGoogleApiClient, uri,
+                DataApi.FILTER_PREFIX).await(PUT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        try {
+            if (!dataItems.getStatus().isSuccess()) {
+                Log.e(TAG, "Failed to list day DataItems: " + dataItems.getStatus());
+                return false;
+            }
+            for (DataItem dataItem : dataItems) {
+                String path = dataItem.getUri().getPath();
+                try {
+                    long date = Long.parseLong(
+                            path.substring(WatchForecastDelta.PATH_DAY_PREFIX.length()));
+                    if (!sentDates.contains(date)) {
+                        stalePaths.add(path);
+                    }
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Unknown day path: " + path);
+                }
+            }
+        } finally {
+            dataItems.release();
+        }
+
+        boolean deleted = true;
+        for (String path : stalePaths) {
+            Status status = delete(path);
+            if (!status.isSuccess()) {
+                Log.e(TAG, "Failed to delete " + path + ": " + status);
+                deleted = false;
+            }
+        }
+        Log.d(TAG, "Watch day items pruned: " + stalePaths.size());
+        return deleted;
+    }
+
+    /*
+     * Makes the next publish go out in full, whatever its hash.  Called with the lock held, so
+     * the saved hash is cleared afterwards by saveForgottenPublish().
+     */
+    private void forgetPublished() {
+        mWatchForecastDelta.reset();
+        mPublishedHash = 0;
+        mHasUnsavedPublish = false;
+        mClearSavedHash = true;
+    }
+
+    /*
+     * Clears the saved hash after forgetPublished(), outside the lock.  Runs on mExecutor.
+     */
+    private void saveForgottenPublish() {
+        synchronized (this) {
+            if (!mClearSavedHash) {
+                return;
+            }
+            mClearSavedHash = false;
+        }
+        SunshinePreferences.saveWatchFacePublish(mContext, 0,
+                SunshinePreferences.getWatchFaceLastPublishedTime(mContext));
+    }
+
+    private Status put(String path, byte[] payloadBytes) {
+        PutDataMapRequest dataMap = PutDataMapRequest.create(path);
+        dataMap.getDataMap().putByteArray(WatchForecastDelta.PAYLOAD_KEY, payloadBytes);
+
+        PutDataRequest request = dataMap.asPutDataRequest();
+        request.setUrgent();
+
+        return Wearable.DataApi.putDataItem(mGoogleApiClient, request)
+                .await(PUT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .getStatus();
+    }
+
+    private Status delete(String path) {
+        Uri uri = new Uri.Builder()
+                .scheme(PutDataRequest.WEAR_URI_SCHEME)
+                .path(path)
+                .build();
+        return Wearable.DataApi.deleteDataItems(mGoogleApiClient, uri)
+                .await(PUT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .getStatus();
+    }
+
+    /*
+     * Only called on mExecutor, where blocking for the connection is fine.  The client is kept
+     * connected for the following publishes.
+     */
+    private boolean ensureConnected() {
+        if (mGoogleApiClient.isConnected()) {
+            return true;
+        }
+
+        ConnectionResult connectionResult =
+                mGoogleApiClient.blockingConnect(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (!connectionResult.isSuccess()) {
+            Log.e(TAG, "Failed to connect to GoogleApiClient: " + connectionResult);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param weatherValues values as parsed by OpenWeatherJsonUtils
+     * @return the payload of the days from today onwards
+     */
+    static WatchPayload fromContentValues(ContentValues[] weatherValues, boolean metric,
+                                          long timestampMillis) {
+        long today = SunshineDateUtils.getNormalizedUtcDateForToday();
+
+        List<WatchPayload.Day> days = new ArrayList<>(weatherValues.length);
+        for (ContentValues values : weatherValues) {
+            long date = values.getAsLong(WeatherContract.WeatherEntry.COLUMN_DATE);
+            if (date < today) {
+                continue;
+            }
+            days.add(new WatchPayload.Day(
+                    date,
+                    values.getAsDouble(WeatherContract.WeatherEntry.COLUMN_MAX_TEMP),
+                    values.getAsDouble(WeatherContract.WeatherEntry.COLUMN_MIN_TEMP),
+                    values.getAsInteger(WeatherContract.WeatherEntry.COLUMN_WEATHER_ID)));
+        }
+        return new WatchPayload(metric, timestampMillis, days);
+    }
+
+    private static String formatAge(long thenMillis, long nowMillis) {
+        if (thenMillis == 0) {
+            return "never";
+        }
+        return TimeUnit.MILLISECONDS.toMinutes(nowMillis - thenMillis) + " min ago";
+    }
+}
@@ -0,0 +1,137 @@
+package com.learn.heddy.sunshinewearever.watchface;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Remembers what was last sent to the WatchFace and works out which DataItems a new forecast
+ * actually changes.  Each day is its own DataItem keyed by its normalized date, next to one small
+ * header item with the unit flag and timestamp, so a typical sync only sends the days whose
+ * values moved.
+ *
+ * The state only lives as long as the process; the first sync after a start is always full, and
+ * as it doesn't know the days sent before, {@link WatchFacePublisher} then lists the day items
+ * in the Data Layer and deletes those no longer sent.
+ */
+public class WatchForecastDelta {
+
+    /* Header DataItem, also the prefix of the per-day items */
+    public static final String PATH_FORECAST = "/sunshinewearever";
+    public static final String PATH_DAY_PREFIX = PATH_FORECAST + "/day/";
+
+    /* Key of the encoded bytes in every DataMap */
+    public static final String PAYLOAD_KEY = "payload";
+
+    // DataItems to put and delete for one sync
+    public static class Delta {
+        public final boolean full;
+        /* Encoded header, null when neither the unit nor any day changed */
+        public final byte[] header;
+        /* Encoded days by normalized date */
+        public final Map<Long, byte[]> changedDays;
+        public final List<Long> removedDates;
+
+        Delta(boolean full, byte[] header, Map<Long, byte[]> changedDays, List<Long> removedDates) {
+            this.full = full;
+            this.header = header;
+            this.changedDays = Collections.unmodifiableMap(changedDays);
+            this.removedDates = Collections.unmodifiableList(removedDates);
+        }
+
+        public boolean isEmpty() {
+            return header == null;
+        }
+
+        // Encoded bytes to send, not counting the DataMap wrapping
+        public int getPayloadBytes() {
+            int bytes = header != null ? header.length : 0;
+            for (byte[] day : changedDays.values()) {
+                bytes += day.length;
+            }
+            return bytes;
+        }
+    }
+
+    private final Map<Long, byte[]> mSentDays = new HashMap<>();
+    private boolean mSentMetric;
+    private boolean mHasSent;
+
+    /**
+     * Stable hash of everything the Watch shows from the payload: the unit and every day, but
+     * not the timestamp.  Equal hashes mean there is nothing new to send.
+     */
+    public static long contentHash(WatchPayload payload) {
+        WatchPayload canonical = new WatchPayload(payload.metric, 0L, payload.days);
+        CRC32 crc = new CRC32();
+        crc.update(canonical.encode());
+        return crc.getValue();
+    }
+
+    public static String dayPath(long normalizedDate) {
+        return PATH_DAY_PREFIX + normalizedDate;
+    }
+
+    /**
+     * Compares the payload with what was sent before and records it as sent.
+     */
+    public synchronized Delta compute(WatchPayload payload) {
+        boolean full = !mHasSent;
+
+        Map<Long, byte[]> changedDays = new LinkedHashMap<>();
+        Map<Long, byte[]> currentDays = new HashMap<>();
+        for (WatchPayload.Day day : payload.days) {
+            byte[] encoded = WatchPayload.encodeDay(day);
+            currentDays.put(day.normalizedDate, encoded);
+            if (!Arrays.equals(encoded, mSentDays.get(day.normalizedDate))) {
+                changedDays.put(day.normalizedDate, encoded);
+            }
+        }
+
+        List<Long> removedDates = new ArrayList<>();
+        Iterator<Long> sentDates = mSentDays.keySet().iterator();
+        while (sentDates.hasNext()) {
+            Long date = sentDates.next();
+            if (!currentDays.containsKey(date)) {
+                removedDates.add(date);
+                sentDates.remove();
+            }
+        }
+
+        byte[] header = null;
+        if (full || payload.metric != mSentMetric
+                || !changedDays.isEmpty() || !removedDates.isEmpty()) {
+            header = new WatchPayload(payload.metric, payload.timestampMillis,
+                    Collections.<WatchPayload.Day>emptyList()).encode();
+        }
+
+        mSentDays.putAll(changedDays);
+        mSentMetric = payload.metric;
+        mHasSent = true;
+
+        return new Delta(full, header, changedDays, removedDates);
+    }
+
+    /**
+     * @return the normalized dates of the days last sent
+     */
+    public synchronized Set<Long> getSentDates() {
+        return new HashSet<>(mSentDays.keySet());
+    }
+
+    /**
+     * Forgets what was sent, so the next sync is full again.  Called when a put fails.
+     */
+    public synchronized void reset() {
+        mSentDays.clear();
+        mHasSent = false;
+    }
+}
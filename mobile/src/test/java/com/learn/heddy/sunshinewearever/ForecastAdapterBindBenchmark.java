@@ -0,0 +1,85 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.database.MatrixCursor;
+import android.support.v7.util.DiffUtil;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import com.learn.heddy.sunshinewearever.utilities.SunshineDateUtils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local benchmark of the bind cost per row of {@link ForecastAdapter}.  Prints the time to format
+ * a row, which onBindViewHolder() used to pay on every bind and {@link ForecastLoader} now pays
+ * once per load, next to the time of a bind that only copies a {@link ForecastRow}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ForecastAdapterBindBenchmark {
+
+    private static final int ROWS = 14;
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void bind_onlyCopiesFormattedRows() throws Exception {
+        Context context = new ContextThemeWrapper(RuntimeEnvironment.application, R.style.AppTheme);
+        MatrixCursor cursor = forecastCursor();
+
+        // What every bind used to do
+        List<ForecastRow> rows = new ArrayList<>(ROWS);
+        long formatStartNanos = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            rows.clear();
+            cursor.moveToPosition(-1);
+            while (cursor.moveToNext()) {
+                rows.add(ForecastRow.fromCursor(context, cursor));
+            }
+        }
+        long formatNanosPerRow = (System.nanoTime() - formatStartNanos) / (ROUNDS * ROWS);
+
+        ForecastAdapter adapter = new ForecastAdapter(context, null);
+        adapter.swapCursor(new ForecastLoader.ForecastRowCursor(cursor, rows,
+                Collections.<ForecastRow>emptyList(), DiffUtil.calculateDiff(
+                        new ForecastDiffCallback(Collections.<ForecastRow>emptyList(), rows))));
+        FrameLayout parent = new FrameLayout(context);
+        ForecastAdapter.ForecastAdapterViewHolder holder =
+                adapter.onCreateViewHolder(parent, adapter.getItemViewType(1));
+
+        // What a bind does now
+        long bindStartNanos = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int position = 1; position < ROWS; position++) {
+                adapter.onBindViewHolder(holder, position);
+            }
+        }
+        long bindNanosPerRow = (System.nanoTime() - bindStartNanos) / (ROUNDS * (ROWS - 1));
+
+        System.out.println("ForecastAdapter format " + formatNanosPerRow + " ns/row, bind "
+                + bindNanosPerRow + " ns/row");
+
+        assertEquals(rows.get(ROWS - 1).highText, holder.highTempView.getText().toString());
+        assertEquals(rows.get(ROWS - 1).lowA11y, holder.lowTempView.getContentDescription());
+    }
+
+    private static MatrixCursor forecastCursor() {
+        MatrixCursor cursor = new MatrixCursor(MainActivity.MAIN_FORECAST_PROJECTION);
+        long today = SunshineDateUtils.getNormalizedUtcDateForToday();
+        for (int i = 0; i < ROWS; i++) {
+            cursor.addRow(new Object[]{
+                    today + i * SunshineDateUtils.DAY_IN_MILLIS, 20.0 + i, 10.0 + i, 800 + i % 4});
+        }
+        return cursor;
+    }
+}
@@ -0,0 +1,61 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.database.MatrixCursor;
+
+import com.learn.heddy.sunshinewearever.utilities.SunshineDateUtils;
+import com.learn.heddy.sunshinewearever.utilities.SunshineWeatherUtils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local test that {@link ForecastDetail} formats a day the way DetailActivity.onLoadFinished()
+ * did on the main thread.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ForecastDetailTest {
+
+    @Test
+    public void fromCursor_formatsLikeOnLoadFinished() throws Exception {
+        Context context = RuntimeEnvironment.application;
+        long date = SunshineDateUtils.getNormalizedUtcDateForToday();
+        MatrixCursor cursor = detailCursor(date);
+        cursor.moveToFirst();
+
+        ForecastDetail detail = ForecastDetail.fromCursor(context, cursor);
+
+        String dateText = SunshineDateUtils.getFriendlyDateString(context, date, true);
+        String description = SunshineWeatherUtils.getStringForWeatherCondition(context, 501);
+        String high = SunshineWeatherUtils.formatTemperature(context, 21.4);
+        String low = SunshineWeatherUtils.formatTemperature(context, 12.6);
+        String humidity = context.getString(R.string.format_humidity, 64f);
+        String wind = SunshineWeatherUtils.getFormattedWind(context, 3.5f, 225f);
+        String pressure = context.getString(R.string.format_pressure, 1013f);
+
+        assertEquals(SunshineWeatherUtils.getLargeArtResourceIdForWeatherCondition(501),
+                detail.weatherImageResId);
+        assertEquals(dateText, detail.dateText);
+        assertEquals(context.getString(R.string.a11y_forecast, description),
+                detail.descriptionA11y);
+        assertEquals(context.getString(R.string.a11y_high_temp, high), detail.highA11y);
+        assertEquals(context.getString(R.string.a11y_low_temp, low), detail.lowA11y);
+        assertEquals(context.getString(R.string.a11y_humidity, humidity), detail.humidityA11y);
+        assertEquals(context.getString(R.string.a11y_wind, wind), detail.windA11y);
+        assertEquals(context.getString(R.string.a11y_pressure, pressure), detail.pressureA11y);
+        assertEquals(String.format("%s - %s - %s/%s", dateText, description, high, low),
+                detail.summary);
+    }
+
+    private static MatrixCursor detailCursor(long date) {
+        MatrixCursor cursor = new MatrixCursor(DetailActivity.WEATHER_DETAIL_PROJECTION);
+        cursor.addRow(new Object[]{date, 21.4, 12.6, 64f, 1013f, 3.5f, 225f, 501});
+        return cursor;
+    }
+}
@@ -0,0 +1,60 @@
+package com.learn.heddy.sunshinewearever;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test for {@link ForecastDiffCallback}.
+ */
+public class ForecastDiffCallbackTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    @Test
+    public void sameDate_isSameItem() throws Exception {
+        ForecastDiffCallback callback = new ForecastDiffCallback(
+                Arrays.asList(row(0, "Clear", "21\u00B0"), row(DAY, "Clear", "22\u00B0")),
+                Arrays.asList(row(DAY, "Rain", "18\u00B0")));
+
+        assertFalse(callback.areItemsTheSame(0, 0));
+        assertTrue(callback.areItemsTheSame(1, 0));
+    }
+
+    @Test
+    public void unchangedRow_hasSameContents() throws Exception {
+        List<ForecastRow> rows = Arrays.asList(row(0, "Clear", "21\u00B0"));
+        ForecastDiffCallback callback =
+                new ForecastDiffCallback(rows, Arrays.asList(row(0, "Clear", "21\u00B0")));
+
+        assertTrue(callback.areContentsTheSame(0, 0));
+    }
+
+    @Test
+    public void temperatureChange_hasTemperaturePayload() throws Exception {
+        ForecastDiffCallback callback = new ForecastDiffCallback(
+                Arrays.asList(row(0, "Clear", "21\u00B0")),
+                Arrays.asList(row(0, "Clear", "23\u00B0")));
+
+        assertFalse(callback.areContentsTheSame(0, 0));
+        assertSame(ForecastDiffCallback.PAYLOAD_TEMPERATURE, callback.getChangePayload(0, 0));
+    }
+
+    @Test
+    public void conditionChange_needsFullBind() throws Exception {
+        ForecastDiffCallback callback = new ForecastDiffCallback(
+                Arrays.asList(row(0, "Clear", "21\u00B0")),
+                Arrays.asList(row(0, "Rain", "23\u00B0")));
+
+        assertFalse(callback.areContentsTheSame(0, 0));
+        assertNull(callback.getChangePayload(0, 0));
+    }
+
+    private static ForecastRow row(long date, String description, String high) {
+        return new ForecastRow(date, description.hashCode(), 1, 2, "Today", description,
+                "Forecast: " + description, high, "High " + high, "10\u00B0", "Low 10\u00B0");
+    }
+}
@@ -0,0 +1,91 @@
+package com.learn.heddy.sunshinewearever;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of the {@link ForecastSnapshotFile} format: rows come back as written, and
+ * only for the settings they were written for.
+ */
+public class ForecastSnapshotFileTest {
+
+    private static final int VERSION_CODE = 3;
+    private static final String CONFIGURATION = "en_US/America/Los_Angeles";
+    private static final long TODAY = 1496275200000L;
+    private static final long DAY = 86400000L;
+
+    private static final List<ForecastRow> ROWS = Arrays.asList(
+            new ForecastRow(TODAY, 800, 0, 0, "Today, June 1", "Clear", "Forecast: Clear",
+                    "21\u00B0", "High temperature: 21\u00B0", "12\u00B0",
+                    "Low temperature: 12\u00B0"),
+            new ForecastRow(TODAY + DAY, 501, 0, 0, "Tomorrow", "Moderate rain",
+                    "Forecast: Moderate rain", "-3\u00B0", "High temperature: -3\u00B0", "-9\u00B0",
+                    "Low temperature: -9\u00B0"));
+
+    @Test
+    public void decode_returnsTheEncodedRows() throws Exception {
+        List<ForecastRow> rows = decode(encode(ROWS), true, CONFIGURATION, TODAY);
+
+        assertEquals(ROWS.size(), rows.size());
+        for (int i = 0; i < ROWS.size(); i++) {
+            ForecastRow expected = ROWS.get(i);
+            ForecastRow row = rows.get(i);
+            assertEquals(expected.date, row.date);
+            assertEquals(expected.weatherId, row.weatherId);
+            assertEquals(expected.dateText, row.dateText);
+            assertEquals(expected.description, row.description);
+            assertEquals(expected.descriptionA11y, row.descriptionA11y);
+            assertEquals(expected.highText, row.highText);
+            assertEquals(expected.highA11y, row.highA11y);
+            assertEquals(expected.lowText, row.lowText);
+            assertEquals(expected.lowA11y, row.lowA11y);
+        }
+    }
+
+    @Test
+    public void decode_keepsAnEmptyForecast() throws Exception {
+        byte[] bytes = ForecastSnapshotFile.encode(VERSION_CODE, true, CONFIGURATION, TODAY,
+                Collections.<ForecastRow>emptyList());
+
+        assertTrue(decode(bytes, true, CONFIGURATION, TODAY).isEmpty());
+    }
+
+    @Test
+    public void decode_rejectsOtherSettings() throws Exception {
+        byte[] bytes = encode(ROWS);
+
+        assertNull(decode(bytes, false, CONFIGURATION, TODAY));
+        assertNull(decode(bytes, true, "fr_FR/Europe/Paris", TODAY));
+        assertNull(decode(bytes, true, CONFIGURATION, TODAY + DAY));
+        assertNull(ForecastSnapshotFile.decode(ByteBuffer.wrap(bytes), VERSION_CODE + 1, true,
+                CONFIGURATION, TODAY));
+    }
+
+    @Test
+    public void decode_rejectsDamagedBytes() throws Exception {
+        byte[] bytes = encode(ROWS);
+
+        assertNull(decode(Arrays.copyOf(bytes, bytes.length - 1), true, CONFIGURATION, TODAY));
+        assertNull(decode(new byte[0], true, CONFIGURATION, TODAY));
+
+        byte[] wrongMagic = bytes.clone();
+        wrongMagic[0] ^= 1;
+        assertNull(decode(wrongMagic, true, CONFIGURATION, TODAY));
+    }
+
+    private static byte[] encode(List<ForecastRow> rows) {
+        return ForecastSnapshotFile.encode(VERSION_CODE, true, CONFIGURATION, TODAY, rows);
+    }
+
+    private static List<ForecastRow> decode(byte[] bytes, boolean metric, String configuration,
+                                            long today) {
+        return ForecastSnapshotFile.decode(ByteBuffer.wrap(bytes), VERSION_CODE, metric,
+                configuration, today);
+    }
+}
@@ -0,0 +1,84 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.database.MatrixCursor;
+
+import com.learn.heddy.sunshinewearever.utilities.SunshineDateUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local test of the day lookups {@link DetailActivity} opens and swipes with.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ForecastStoreTest {
+
+    private static final long DAY = SunshineDateUtils.DAY_IN_MILLIS;
+
+    private long mToday;
+    private ForecastStore mStore;
+
+    @Before
+    public void setUp() {
+        mToday = SunshineDateUtils.getNormalizedUtcDateForToday();
+        mStore = new ForecastStore();
+    }
+
+    @Test
+    public void get_isEmptyBeforeALoad() throws Exception {
+        assertNull(mStore.get(mToday));
+        assertNull(mStore.getAdjacent(mToday, 1));
+    }
+
+    @Test
+    public void getAdjacent_pagesWithinTheLoad() throws Exception {
+        mStore.setDays(details(mToday, 3));
+
+        assertEquals(mToday + DAY, mStore.get(mToday + DAY).date);
+        assertEquals(mToday + 2 * DAY, mStore.getAdjacent(mToday + DAY, 1).date);
+        assertEquals(mToday, mStore.getAdjacent(mToday + DAY, -1).date);
+
+        // No paging past either end, or from a day the load didn't have
+        assertNull(mStore.getAdjacent(mToday, -1));
+        assertNull(mStore.getAdjacent(mToday + 2 * DAY, 1));
+        assertNull(mStore.getAdjacent(mToday + 3 * DAY, -1));
+    }
+
+    @Test
+    public void setDays_replacesTheLoad() throws Exception {
+        mStore.setDays(details(mToday, 3));
+        mStore.setDays(details(mToday + DAY, 3));
+
+        assertNull(mStore.get(mToday));
+        assertEquals(mToday + 3 * DAY, mStore.getAdjacent(mToday + 2 * DAY, 1).date);
+
+        mStore.setDays(Collections.<ForecastDetail>emptyList());
+        assertNull(mStore.get(mToday + DAY));
+    }
+
+    private static List<ForecastDetail> details(long firstDate, int days) {
+        Context context = RuntimeEnvironment.application;
+        MatrixCursor cursor = new MatrixCursor(DetailActivity.WEATHER_DETAIL_PROJECTION);
+        for (int i = 0; i < days; i++) {
+            cursor.addRow(new Object[]{firstDate + i * DAY, 20.0, 10.0, 60f, 1010f, 2f, 90f, 800});
+        }
+
+        List<ForecastDetail> details = new ArrayList<>(days);
+        while (cursor.moveToNext()) {
+            details.add(ForecastDetail.fromCursor(context, cursor));
+        }
+        return details;
+    }
+}
@@ -0,0 +1,95 @@
+package com.learn.heddy.sunshinewearever.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import com.learn.heddy.sunshinewearever.BuildConfig;
+import com.learn.heddy.sunshinewearever.R;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local benchmark of the preference reads the main thread does for the list and the watch face
+ * (location, units, notifications), through the snapshot and the way every getter used to read
+ * them.  Prints ns per round of the three reads.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class SunshinePreferencesBenchmark {
+
+    private static final int ROUNDS = 20000;
+
+    @Test
+    public void getters_againstSharedPreferences() throws Exception {
+        Context context = RuntimeEnvironment.application;
+        SunshinePreferences.invalidate();
+
+        // Warm up both paths
+        int count = readSharedPreferences(context) + readSnapshot(context);
+
+        long startNanos = System.nanoTime();
+        count += readSharedPreferences(context);
+        long sharedPreferencesNanos = (System.nanoTime() - startNanos) / ROUNDS;
+
+        startNanos = System.nanoTime();
+        count += readSnapshot(context);
+        long snapshotNanos = (System.nanoTime() - startNanos) / ROUNDS;
+
+        System.out.println("SunshinePreferences SharedPreferences " + sharedPreferencesNanos
+                + " ns/round, snapshot " + snapshotNanos + " ns/round");
+        assertEquals(4 * ROUNDS * 3, count);
+    }
+
+    // What the getters did before the snapshot
+    private static int readSharedPreferences(Context context) {
+        int count = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
+            if (sp.getString(context.getString(R.string.pref_location_key),
+                    context.getString(R.string.pref_location_default)) != null) {
+                count++;
+            }
+
+            sp = PreferenceManager.getDefaultSharedPreferences(context);
+            String units = sp.getString(context.getString(R.string.pref_units_key),
+                    context.getString(R.string.pref_units_metric));
+            if (context.getString(R.string.pref_units_metric).equals(units)) {
+                count++;
+            }
+
+            boolean byDefault = context.getResources()
+                    .getBoolean(R.bool.show_notifications_by_default);
+            sp = PreferenceManager.getDefaultSharedPreferences(context);
+            if (sp.getBoolean(context.getString(R.string.pref_enable_notifications_key),
+                    byDefault) == byDefault) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int readSnapshot(Context context) {
+        boolean byDefault = context.getResources()
+                .getBoolean(R.bool.show_notifications_by_default);
+        int count = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            if (SunshinePreferences.getPreferredWeatherLocation(context) != null) {
+                count++;
+            }
+            if (SunshinePreferences.isMetric(context)) {
+                count++;
+            }
+            if (SunshinePreferences.areNotificationsEnabled(context) == byDefault) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,121 @@
+package com.learn.heddy.sunshinewearever.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import com.learn.heddy.sunshinewearever.BuildConfig;
+import com.learn.heddy.sunshinewearever.R;
+import com.learn.heddy.sunshinewearever.utilities.TemperatureFormatter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local test of the preference snapshot behind the {@link SunshinePreferences} getters: they
+ * have to see the writes of SunshinePreferences itself right away, and those of the settings
+ * screen once its change is reported.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class SunshinePreferencesTest {
+
+    private Context mContext;
+    private SharedPreferences mPreferences;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mPreferences = PreferenceManager.getDefaultSharedPreferences(mContext);
+        SunshinePreferences.invalidate();
+    }
+
+    @Test
+    public void getters_returnDefaults() throws Exception {
+        assertEquals(mContext.getString(R.string.pref_location_default),
+                SunshinePreferences.getPreferredWeatherLocation(mContext));
+        assertTrue(SunshinePreferences.isMetric(mContext));
+        assertFalse(SunshinePreferences.isLocationLatLonAvailable(mContext));
+        assertArrayEquals(new double[]{0.0, 0.0},
+                SunshinePreferences.getLocationCoordinates(mContext), 0.0);
+        assertEquals(mContext.getResources().getBoolean(R.bool.show_notifications_by_default),
+                SunshinePreferences.areNotificationsEnabled(mContext));
+        assertEquals(0, SunshinePreferences.getLastNotificationTimeInMillis(mContext));
+        assertEquals(0, SunshinePreferences.getWatchFacePayloadHash(mContext));
+    }
+
+    @Test
+    public void getters_seeOwnWritesAtOnce() throws Exception {
+        SunshinePreferences.isMetric(mContext);
+
+        SunshinePreferences.setLocationDetails(mContext, 37.4, -122.1);
+        SunshinePreferences.saveLastNotificationTime(mContext, 1234L);
+        SunshinePreferences.saveWatchFacePublish(mContext, 42L, 5678L);
+
+        assertTrue(SunshinePreferences.isLocationLatLonAvailable(mContext));
+        assertArrayEquals(new double[]{37.4, -122.1},
+                SunshinePreferences.getLocationCoordinates(mContext), 0.0);
+        assertEquals(1234L, SunshinePreferences.getLastNotificationTimeInMillis(mContext));
+        assertEquals(42L, SunshinePreferences.getWatchFacePayloadHash(mContext));
+        assertEquals(5678L, SunshinePreferences.getWatchFaceLastPublishedTime(mContext));
+
+        SunshinePreferences.resetLocationCoordinates(mContext);
+        assertFalse(SunshinePreferences.isLocationLatLonAvailable(mContext));
+    }
+
+    @Test
+    public void getters_seeSettingsChanges() throws Exception {
+        assertTrue(SunshinePreferences.isMetric(mContext));
+
+        // As the settings screen writes them
+        mPreferences.edit()
+                .putString(mContext.getString(R.string.pref_units_key),
+                        mContext.getString(R.string.pref_units_imperial))
+                .putString(mContext.getString(R.string.pref_location_key), "Paris, FR")
+                .commit();
+
+        assertFalse(SunshinePreferences.isMetric(mContext));
+        assertEquals("Paris, FR", SunshinePreferences.getPreferredWeatherLocation(mContext));
+    }
+
+    @Test
+    public void temperatureFormatter_followsUnitsChange() throws Exception {
+        assertTrue(TemperatureFormatter.getInstance(mContext).isMetric());
+
+        mPreferences.edit()
+                .putString(mContext.getString(R.string.pref_units_key),
+                        mContext.getString(R.string.pref_units_imperial))
+                .commit();
+
+        assertFalse(TemperatureFormatter.getInstance(mContext).isMetric());
+    }
+
+    @Test
+    public void setLocationDetails_skipsUnchangedCoordinates() throws Exception {
+        SunshinePreferences.setLocationDetails(mContext, 37.4, -122.1);
+
+        final int[] changes = new int[1];
+        SharedPreferences.OnSharedPreferenceChangeListener listener =
+                new SharedPreferences.OnSharedPreferenceChangeListener() {
+                    @Override
+                    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences,
+                                                          String key) {
+                        changes[0]++;
+                    }
+                };
+        mPreferences.registerOnSharedPreferenceChangeListener(listener);
+
+        SunshinePreferences.setLocationDetails(mContext, 37.4, -122.1);
+        assertEquals(0, changes[0]);
+
+        SunshinePreferences.setLocationDetails(mContext, 48.9, 2.4);
+        assertTrue(changes[0] > 0);
+        mPreferences.unregisterOnSharedPreferenceChangeListener(listener);
+    }
+}
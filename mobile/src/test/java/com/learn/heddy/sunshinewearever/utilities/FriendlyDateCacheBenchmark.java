@@ -0,0 +1,48 @@
+package com.learn.heddy.sunshinewearever.utilities;
+
+import android.content.Context;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local throughput benchmark of {@link FriendlyDateCache} lookups for a two week forecast, the
+ * cost a row pays once its label was made.  Prints ns/lookup.
+ */
+public class FriendlyDateCacheBenchmark {
+
+    private static final int DAYS = 14;
+    private static final int ROUNDS = 100000;
+
+    @Test
+    public void get_throughput() throws Exception {
+        FriendlyDateCache cache = new FriendlyDateCache(FriendlyDateCache.SYSTEM_CLOCK) {
+            @Override
+            String createLabel(Context context, long normalizedUtcMidnight, boolean showFullDate) {
+                return "label";
+            }
+        };
+        long today = SunshineDateUtils.normalizeDate(System.currentTimeMillis());
+
+        int length = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int day = 0; day < DAYS; day++) {
+                length += cache.get(null, today + day * SunshineDateUtils.DAY_IN_MILLIS, false)
+                        .length();
+            }
+        }
+
+        long startNanos = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int day = 0; day < DAYS; day++) {
+                length += cache.get(null, today + day * SunshineDateUtils.DAY_IN_MILLIS, false)
+                        .length();
+            }
+        }
+        long nanosPerLookup = (System.nanoTime() - startNanos) / ((long) ROUNDS * DAYS);
+
+        System.out.println("FriendlyDateCache " + nanosPerLookup + " ns/lookup");
+        assertTrue(length > 0);
+    }
+}
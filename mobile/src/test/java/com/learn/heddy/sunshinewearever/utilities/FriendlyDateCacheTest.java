@@ -0,0 +1,160 @@
+package com.learn.heddy.sunshinewearever.utilities;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test for {@link FriendlyDateCache}, driven by a fake clock across midnight, DST and
+ * time zone changes.  The labels are stand-ins, what matters is when they are made again.
+ */
+public class FriendlyDateCacheTest {
+
+    private static final long DAY = SunshineDateUtils.DAY_IN_MILLIS;
+
+    /* 2017-06-01, normalized */
+    private static final long JUNE_1 = utc(2017, Calendar.JUNE, 1, 0, 0);
+
+    private TimeZone mDefaultTimeZone;
+    private Locale mDefaultLocale;
+
+    private static class FakeClock implements FriendlyDateCache.Clock {
+        long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    // Counts the labels it makes
+    private static class CountingCache extends FriendlyDateCache {
+        int created;
+
+        CountingCache(Clock clock) {
+            super(clock);
+        }
+
+        @Override
+        String createLabel(Context context, long normalizedUtcMidnight, boolean showFullDate) {
+            created++;
+            return new String(normalizedUtcMidnight + (showFullDate ? " full" : ""));
+        }
+    }
+
+    @Before
+    public void setUp() {
+        mDefaultTimeZone = TimeZone.getDefault();
+        mDefaultLocale = Locale.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+        Locale.setDefault(Locale.US);
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(mDefaultTimeZone);
+        Locale.setDefault(mDefaultLocale);
+    }
+
+    @Test
+    public void get_makesEachLabelOncePerDay() throws Exception {
+        FakeClock clock = new FakeClock();
+        CountingCache cache = new CountingCache(clock);
+
+        // 09:00 PDT
+        clock.now = utc(2017, Calendar.JUNE, 1, 16, 0);
+        String label = cache.get(null, JUNE_1, false);
+        clock.now += 60 * 60 * 1000;
+
+        assertSame(label, cache.get(null, JUNE_1, false));
+        assertFalse(label.equals(cache.get(null, JUNE_1, true)));
+        cache.get(null, JUNE_1 + DAY, false);
+        assertEquals(3, cache.created);
+    }
+
+    @Test
+    public void get_expiresAtUtcMidnight() throws Exception {
+        FakeClock clock = new FakeClock();
+        CountingCache cache = new CountingCache(clock);
+
+        // 16:59:59 PDT, a second before midnight UTC
+        clock.now = utc(2017, Calendar.JUNE, 1, 23, 59) + 59 * 1000;
+        String label = cache.get(null, JUNE_1, false);
+        clock.now += 2000;
+
+        assertNotSame(label, cache.get(null, JUNE_1, false));
+        assertEquals(2, cache.created);
+    }
+
+    @Test
+    public void get_expiresAtLocalMidnight() throws Exception {
+        FakeClock clock = new FakeClock();
+        CountingCache cache = new CountingCache(clock);
+
+        // 23:59 PDT on June 1st, then 00:01 PDT on June 2nd
+        clock.now = utc(2017, Calendar.JUNE, 2, 6, 59);
+        String label = cache.get(null, JUNE_1, false);
+        clock.now += 2 * 60 * 1000;
+
+        assertNotSame(label, cache.get(null, JUNE_1, false));
+        assertEquals(2, cache.created);
+    }
+
+    @Test
+    public void nextMidnight_followsDst() throws Exception {
+        TimeZone london = TimeZone.getTimeZone("Europe/London");
+
+        // Before and after the clocks go forward on March 26th
+        assertEquals(utc(2017, Calendar.MARCH, 26, 0, 0),
+                FriendlyDateCache.nextMidnight(utc(2017, Calendar.MARCH, 25, 12, 0), london));
+        assertEquals(utc(2017, Calendar.MARCH, 26, 23, 0),
+                FriendlyDateCache.nextMidnight(utc(2017, Calendar.MARCH, 26, 12, 0), london));
+
+        // Before and after the clocks go back on October 29th
+        assertEquals(utc(2017, Calendar.OCTOBER, 28, 23, 0),
+                FriendlyDateCache.nextMidnight(utc(2017, Calendar.OCTOBER, 28, 12, 0), london));
+        assertEquals(utc(2017, Calendar.OCTOBER, 30, 0, 0),
+                FriendlyDateCache.nextMidnight(utc(2017, Calendar.OCTOBER, 29, 12, 0), london));
+    }
+
+    @Test
+    public void get_expiresOnTimeZoneChange() throws Exception {
+        FakeClock clock = new FakeClock();
+        CountingCache cache = new CountingCache(clock);
+
+        clock.now = utc(2017, Calendar.JUNE, 1, 16, 0);
+        String label = cache.get(null, JUNE_1, false);
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+
+        assertNotSame(label, cache.get(null, JUNE_1, false));
+        assertEquals(2, cache.created);
+    }
+
+    @Test
+    public void get_expiresOnLocaleChange() throws Exception {
+        FakeClock clock = new FakeClock();
+        CountingCache cache = new CountingCache(clock);
+
+        clock.now = utc(2017, Calendar.JUNE, 1, 16, 0);
+        String label = cache.get(null, JUNE_1, false);
+        Locale.setDefault(Locale.FRANCE);
+
+        assertNotSame(label, cache.get(null, JUNE_1, false));
+        assertEquals(2, cache.created);
+    }
+
+    private static long utc(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,51 @@
+package com.learn.heddy.sunshinewearever.utilities;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local benchmark of {@link TemperatureFormatter} against the String.format that
+ * formatTemperature() used to call.  Prints ns/call for both; the preference and resource reads
+ * the old path also did on every call are not counted.
+ */
+public class TemperatureFormatterBenchmark {
+
+    private static final String PATTERN = "%1.0f\u00B0";
+    private static final int CALLS = 200000;
+
+    @Test
+    public void format_againstStringFormat() throws Exception {
+        TemperatureFormatter formatter = TemperatureFormatter.create(PATTERN, false, Locale.US);
+
+        // Warm up both paths
+        int length = 0;
+        for (int i = 0; i < CALLS; i++) {
+            length += formatter.format(temperature(i)).length();
+            length += String.format(PATTERN, temperature(i) * 1.8 + 32).length();
+        }
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            length += String.format(PATTERN, temperature(i) * 1.8 + 32).length();
+        }
+        long stringFormatNanos = (System.nanoTime() - startNanos) / CALLS;
+
+        startNanos = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            length += formatter.format(temperature(i)).length();
+        }
+        long formatterNanos = (System.nanoTime() - startNanos) / CALLS;
+
+        System.out.println("TemperatureFormatter " + formatterNanos + " ns/call, String.format "
+                + stringFormatNanos + " ns/call");
+        assertTrue(length > 0);
+    }
+
+    // Celsius between -20 and 40 in tenths
+    private static double temperature(int i) {
+        return (i % 600) / 10.0 - 20;
+    }
+}
@@ -0,0 +1,52 @@
+package com.learn.heddy.sunshinewearever.utilities;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test for {@link TemperatureFormatter}, checked against String.format with the
+ * format_temperature pattern.
+ */
+public class TemperatureFormatterTest {
+
+    private static final String PATTERN = "%1.0f\u00B0";
+
+    @Test
+    public void format_matchesStringFormat() throws Exception {
+        TemperatureFormatter metric = TemperatureFormatter.create(PATTERN, true, Locale.US);
+        TemperatureFormatter imperial = TemperatureFormatter.create(PATTERN, false, Locale.US);
+
+        for (int hundredths = -20000; hundredths <= 20000; hundredths++) {
+            double celsius = hundredths / 100.0;
+            assertEquals(String.format(Locale.US, PATTERN, celsius), metric.format(celsius));
+            assertEquals(String.format(Locale.US, PATTERN, celsius * 1.8 + 32),
+                    imperial.format(celsius));
+        }
+    }
+
+    @Test
+    public void format_keepsTextAroundNumber() throws Exception {
+        String pattern = "\n        %1.0f\u00B0 C\n    ";
+        TemperatureFormatter formatter = TemperatureFormatter.create(pattern, true, Locale.US);
+
+        assertEquals(String.format(Locale.US, pattern, -3.6), formatter.format(-3.6));
+    }
+
+    @Test
+    public void format_fallsBackForOtherDigits() throws Exception {
+        Locale arabic = new Locale("ar", "EG");
+        TemperatureFormatter formatter = TemperatureFormatter.create(PATTERN, true, arabic);
+
+        assertEquals(String.format(arabic, PATTERN, 21.4), formatter.format(21.4));
+    }
+
+    @Test
+    public void format_returnsCachedStrings() throws Exception {
+        TemperatureFormatter formatter = TemperatureFormatter.create(PATTERN, true, Locale.US);
+
+        assertSame(formatter.format(21.0), formatter.format(21.2));
+    }
+}
@@ -0,0 +1,62 @@
+package com.learn.heddy.sunshinewearever.utilities;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local benchmark of resolving the description and both icons of a condition ID, through
+ * {@link WeatherConditionTable} and through the if/else chains it replaced, over the IDs a
+ * forecast actually has.  Prints picoseconds per ID for both, since an ID only takes a few ns.
+ */
+public class WeatherConditionTableBenchmark {
+
+    private static final int[] IDS = {
+            211, 302, 500, 501, 502, 511, 521, 600, 615, 701, 741, 781, 800, 801, 803, 804, 906,
+            957
+    };
+    private static final int ROUNDS = 200000;
+
+    @Test
+    public void lookup_againstChains() throws Exception {
+        // Warm up both paths
+        long sum = chains() + table();
+
+        long startNanos = System.nanoTime();
+        sum += chains();
+        long chainNanos = System.nanoTime() - startNanos;
+
+        startNanos = System.nanoTime();
+        sum += table();
+        long tableNanos = System.nanoTime() - startNanos;
+
+        long lookups = (long) ROUNDS * IDS.length;
+        System.out.println("Weather condition chains " + (chainNanos * 1000 / lookups)
+                + " ps/ID, table " + (tableNanos * 1000 / lookups) + " ps/ID");
+        assertTrue(sum != 0);
+    }
+
+    private static long chains() {
+        long sum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int id : IDS) {
+                sum += LegacyWeatherConditions.getDescriptionResId(id)
+                        + LegacyWeatherConditions.getSmallArtResId(id)
+                        + LegacyWeatherConditions.getLargeArtResId(id);
+            }
+        }
+        return sum;
+    }
+
+    private static long table() {
+        long sum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int id : IDS) {
+                WeatherConditionTable.Condition condition = WeatherConditionTable.get(id);
+                sum += condition.descriptionResId + condition.smallArtResId
+                        + condition.largeArtResId;
+            }
+        }
+        return sum;
+    }
+}
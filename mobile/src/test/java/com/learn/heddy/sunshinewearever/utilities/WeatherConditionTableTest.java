@@ -0,0 +1,62 @@
+package com.learn.heddy.sunshinewearever.utilities;
+
+import com.learn.heddy.sunshinewearever.R;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test checking {@link WeatherConditionTable} against the if/else chains it replaced,
+ * for every ID of the table and a margin of unknown ones around it.
+ */
+public class WeatherConditionTableTest {
+
+    private static final int[] OUTSIDE_IDS = {Integer.MIN_VALUE, -1, Integer.MAX_VALUE};
+
+    @Test
+    public void get_matchesOldChainsForEveryId() throws Exception {
+        for (int id = -WeatherConditionTable.SIZE; id < 2 * WeatherConditionTable.SIZE; id++) {
+            assertSameAsChains(id);
+        }
+        for (int id : OUTSIDE_IDS) {
+            assertSameAsChains(id);
+        }
+    }
+
+    @Test
+    public void get_returnsNullForUnknownIds() throws Exception {
+        assertNull(WeatherConditionTable.get(-1));
+        assertNull(WeatherConditionTable.get(0));
+        assertNull(WeatherConditionTable.get(999));
+        assertNull(WeatherConditionTable.get(WeatherConditionTable.SIZE));
+    }
+
+    @Test
+    public void get_keepsMismatchedRanges() throws Exception {
+        // Described but without art of its own
+        WeatherConditionTable.Condition condition = WeatherConditionTable.get(762);
+        assertEquals(R.string.condition_762, condition.descriptionResId);
+        assertEquals(0, condition.smallArtResId);
+
+        // Art without a description
+        condition = WeatherConditionTable.get(525);
+        assertEquals(0, condition.descriptionResId);
+        assertEquals(R.drawable.ic_rain, condition.smallArtResId);
+        assertEquals(R.drawable.art_rain, condition.largeArtResId);
+    }
+
+    private static void assertSameAsChains(int id) {
+        WeatherConditionTable.Condition condition = WeatherConditionTable.get(id);
+        int description = condition == null ? 0 : condition.descriptionResId;
+        int smallArt = condition == null || condition.smallArtResId == 0
+                ? R.drawable.ic_storm : condition.smallArtResId;
+        int largeArt = condition == null || condition.largeArtResId == 0
+                ? R.drawable.art_storm : condition.largeArtResId;
+
+        assertEquals("description of " + id,
+                LegacyWeatherConditions.getDescriptionResId(id), description);
+        assertEquals("small art of " + id, LegacyWeatherConditions.getSmallArtResId(id), smallArt);
+        assertEquals("large art of " + id, LegacyWeatherConditions.getLargeArtResId(id), largeArt);
+    }
+}
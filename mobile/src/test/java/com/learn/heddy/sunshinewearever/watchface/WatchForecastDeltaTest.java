@@ -0,0 +1,160 @@
+package com.learn.heddy.sunshinewearever.watchface;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test for {@link WatchForecastDelta}.  Also prints the payload bytes of a full and a
+ * typical delta sync of the 14 day forecast.
+ */
+public class WatchForecastDeltaTest {
+
+    private static final long DAY_IN_MILLIS = 24L * 60 * 60 * 1000;
+    private static final long TODAY = 17000L * DAY_IN_MILLIS;
+    private static final int FORECAST_DAYS = 14;
+
+    @Test
+    public void firstSync_isFull() throws Exception {
+        WatchForecastDelta.Delta delta =
+                new WatchForecastDelta().compute(payload(true, forecast(TODAY, 0)));
+
+        assertTrue(delta.full);
+        assertNotNull(delta.header);
+        assertEquals(FORECAST_DAYS, delta.changedDays.size());
+        assertTrue(delta.removedDates.isEmpty());
+    }
+
+    @Test
+    public void unchangedForecast_sendsNothing() throws Exception {
+        WatchForecastDelta tracker = new WatchForecastDelta();
+        tracker.compute(payload(true, forecast(TODAY, 0)));
+
+        WatchForecastDelta.Delta delta = tracker.compute(payload(true, forecast(TODAY, 0)));
+
+        assertTrue(delta.isEmpty());
+        assertTrue(delta.changedDays.isEmpty());
+    }
+
+    @Test
+    public void changedDay_sendsOnlyThatDay() throws Exception {
+        WatchForecastDelta tracker = new WatchForecastDelta();
+        tracker.compute(payload(true, forecast(TODAY, 0)));
+
+        List<WatchPayload.Day> days = forecast(TODAY, 0);
+        days.set(3, new WatchPayload.Day(TODAY + 3 * DAY_IN_MILLIS, 30.0, 10.0, 500));
+        WatchForecastDelta.Delta delta = tracker.compute(payload(true, days));
+
+        assertFalse(delta.full);
+        assertNotNull(delta.header);
+        assertEquals(1, delta.changedDays.size());
+        assertTrue(delta.changedDays.containsKey(TODAY + 3 * DAY_IN_MILLIS));
+    }
+
+    @Test
+    public void unitChange_sendsOnlyHeader() throws Exception {
+        WatchForecastDelta tracker = new WatchForecastDelta();
+        tracker.compute(payload(true, forecast(TODAY, 0)));
+
+        WatchForecastDelta.Delta delta = tracker.compute(payload(false, forecast(TODAY, 0)));
+
+        assertNotNull(delta.header);
+        assertFalse(WatchPayload.decode(delta.header).metric);
+        assertTrue(delta.changedDays.isEmpty());
+    }
+
+    @Test
+    public void nextDay_removesYesterdayAndAddsNewDay() throws Exception {
+        WatchForecastDelta tracker = new WatchForecastDelta();
+        tracker.compute(payload(true, forecast(TODAY, 0)));
+
+        WatchForecastDelta.Delta delta =
+                tracker.compute(payload(true, forecast(TODAY + DAY_IN_MILLIS, 1)));
+
+        assertEquals(1, delta.removedDates.size());
+        assertEquals(Long.valueOf(TODAY), delta.removedDates.get(0));
+        assertEquals(1, delta.changedDays.size());
+        assertTrue(delta.changedDays.containsKey(TODAY + FORECAST_DAYS * DAY_IN_MILLIS));
+    }
+
+    @Test
+    public void getSentDates_followsTheLastPayload() throws Exception {
+        WatchForecastDelta tracker = new WatchForecastDelta();
+        tracker.compute(payload(true, forecast(TODAY, 0)));
+        tracker.compute(payload(true, forecast(TODAY + DAY_IN_MILLIS, 1)));
+
+        assertEquals(FORECAST_DAYS, tracker.getSentDates().size());
+        assertFalse(tracker.getSentDates().contains(TODAY));
+        assertTrue(tracker.getSentDates().contains(TODAY + FORECAST_DAYS * DAY_IN_MILLIS));
+
+        tracker.reset();
+        assertTrue(tracker.getSentDates().isEmpty());
+    }
+
+    @Test
+    public void reset_makesNextSyncFull() throws Exception {
+        WatchForecastDelta tracker = new WatchForecastDelta();
+        tracker.compute(payload(true, forecast(TODAY, 0)));
+
+        tracker.reset();
+        WatchForecastDelta.Delta delta = tracker.compute(payload(true, forecast(TODAY, 0)));
+
+        assertTrue(delta.full);
+        assertEquals(FORECAST_DAYS, delta.changedDays.size());
+    }
+
+    @Test
+    public void contentHash_ignoresTimestampOnly() throws Exception {
+        WatchPayload first = new WatchPayload(true, 1000L, forecast(TODAY, 0));
+        WatchPayload later = new WatchPayload(true, 2000L, forecast(TODAY, 0));
+
+        assertEquals(WatchForecastDelta.contentHash(first), WatchForecastDelta.contentHash(later));
+    }
+
+    @Test
+    public void contentHash_changesWithUnitOrAnyDay() throws Exception {
+        long hash = WatchForecastDelta.contentHash(payload(true, forecast(TODAY, 0)));
+
+        assertNotEquals(hash, WatchForecastDelta.contentHash(payload(false, forecast(TODAY, 0))));
+
+        // Same first date, new forecast for a later day
+        List<WatchPayload.Day> days = forecast(TODAY, 0);
+        days.set(9, new WatchPayload.Day(TODAY + 9 * DAY_IN_MILLIS, 1.0, 0.5, 600));
+        assertNotEquals(hash, WatchForecastDelta.contentHash(payload(true, days)));
+    }
+
+    @Test
+    public void reportBytesPerSync() throws Exception {
+        WatchForecastDelta tracker = new WatchForecastDelta();
+        int fullBytes = tracker.compute(payload(true, forecast(TODAY, 0))).getPayloadBytes();
+
+        List<WatchPayload.Day> days = forecast(TODAY, 0);
+        days.set(0, new WatchPayload.Day(TODAY, 25.0, 12.0, 800));
+        int deltaBytes = tracker.compute(payload(true, days)).getPayloadBytes();
+
+        int singlePayloadBytes = payload(true, forecast(TODAY, 0)).encode().length;
+
+        System.out.println("Watch sync payload bytes: full " + fullBytes + ", one day changed "
+                + deltaBytes + ", whole forecast as one item " + singlePayloadBytes);
+
+        assertTrue(deltaBytes < fullBytes);
+    }
+
+    private static WatchPayload payload(boolean metric, List<WatchPayload.Day> days) {
+        return new WatchPayload(metric, System.currentTimeMillis(), days);
+    }
+
+    /* 14 days from the start date; the seed shifts with the start so overlapping days match */
+    private static List<WatchPayload.Day> forecast(long start, int startSeed) {
+        List<WatchPayload.Day> days = new ArrayList<>();
+        for (int i = 0; i < FORECAST_DAYS; i++) {
+            int seed = startSeed + i;
+            days.add(new WatchPayload.Day(start + i * DAY_IN_MILLIS,
+                    20.5 + seed, 8.25 + seed, 800 + seed));
+        }
+        return days;
+    }
+}
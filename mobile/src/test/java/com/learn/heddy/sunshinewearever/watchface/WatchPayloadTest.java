@@ -0,0 +1,132 @@
+package com.learn.heddy.sunshinewearever.watchface;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test for {@link WatchPayload}, including a size and decode time comparison with the
+ * "high / low" string the Phone used to send.
+ */
+public class WatchPayloadTest {
+
+    private static final long DAY_IN_MILLIS = 24L * 60 * 60 * 1000;
+    private static final long TODAY = 17000L * DAY_IN_MILLIS;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int ITERATIONS = 200000;
+
+    @Test
+    public void encodeDecode_roundTrips() throws Exception {
+        WatchPayload payload = new WatchPayload(false, 1234567890L, forecast(14));
+
+        WatchPayload decoded = WatchPayload.decode(payload.encode());
+
+        assertNotNull(decoded);
+        assertFalse(decoded.metric);
+        assertEquals(1234567890L, decoded.timestampMillis);
+        assertEquals(14, decoded.days.size());
+        for (int i = 0; i < 14; i++) {
+            WatchPayload.Day expected = payload.days.get(i);
+            WatchPayload.Day actual = decoded.days.get(i);
+            assertEquals(expected.normalizedDate, actual.normalizedDate);
+            assertEquals(expected.highCelsius, actual.highCelsius, 0.005);
+            assertEquals(expected.lowCelsius, actual.lowCelsius, 0.005);
+            assertEquals(expected.weatherId, actual.weatherId);
+        }
+    }
+
+    @Test
+    public void decode_rejectsTruncatedAndUnknownPayloads() throws Exception {
+        byte[] encoded = new WatchPayload(true, 0L, forecast(3)).encode();
+
+        byte[] truncated = new byte[encoded.length - 1];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        assertNull(WatchPayload.decode(truncated));
+
+        encoded[0] = WatchPayload.FORMAT_VERSION + 1;
+        assertNull(WatchPayload.decode(encoded));
+        assertNull(WatchPayload.decode(null));
+    }
+
+    @Test
+    public void encodeDayDecodeDay_roundTrips() throws Exception {
+        WatchPayload.Day day = forecast(1).get(0);
+
+        WatchPayload.Day decoded = WatchPayload.decodeDay(WatchPayload.encodeDay(day));
+
+        assertEquals(day.normalizedDate, decoded.normalizedDate);
+        assertEquals(day.highCelsius, decoded.highCelsius, 0.005);
+        assertEquals(day.lowCelsius, decoded.lowCelsius, 0.005);
+        assertEquals(day.weatherId, decoded.weatherId);
+        assertNull(WatchPayload.decodeDay(new byte[] {WatchPayload.FORMAT_VERSION, 0}));
+    }
+
+    @Test
+    public void encode_clampsOutOfRangeTemperatures() throws Exception {
+        List<WatchPayload.Day> days = new ArrayList<>();
+        days.add(new WatchPayload.Day(TODAY, 1000.0, -1000.0, 800));
+
+        WatchPayload decoded = WatchPayload.decode(new WatchPayload(true, 0L, days).encode());
+
+        assertEquals(Short.MAX_VALUE / 100.0, decoded.days.get(0).highCelsius, 0.0);
+        assertEquals(Short.MIN_VALUE / 100.0, decoded.days.get(0).lowCelsius, 0.0);
+    }
+
+    @Test
+    public void encode_keepsTheNewestDaysOfALongForecast() throws Exception {
+        WatchPayload decoded = WatchPayload.decode(new WatchPayload(true, 0L, forecast(300))
+                .encode());
+
+        assertEquals(255, decoded.days.size());
+        assertEquals(TODAY + 45 * DAY_IN_MILLIS, decoded.days.get(0).normalizedDate);
+        assertEquals(TODAY + 299 * DAY_IN_MILLIS, decoded.days.get(254).normalizedDate);
+    }
+
+    /*
+     * Not a strict benchmark, just prints the numbers so changes to the format can be compared.
+     * The string format only ever carried today, the binary one carries the whole forecast.
+     */
+    @Test
+    public void compareWithStringFormat() throws Exception {
+        byte[] todayString = "21\u00B0 / 15\u00B0".getBytes(UTF_8);
+        byte[] todayBinary = new WatchPayload(true, 0L, forecast(1)).encode();
+        byte[] weekBinary = new WatchPayload(true, 0L, forecast(7)).encode();
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            String highLow = new String(todayString, UTF_8);
+            String[] parts = highLow.split("/");
+            checksum += parts[0].trim().length() + parts[1].trim().length();
+        }
+        long stringNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += WatchPayload.decode(todayBinary).days.get(0).weatherId;
+        }
+        long binaryNanos = System.nanoTime() - start;
+
+        System.out.println("Watch payload today: string " + todayString.length + " bytes "
+                + (stringNanos / ITERATIONS) + " ns, binary " + todayBinary.length + " bytes "
+                + (binaryNanos / ITERATIONS) + " ns; week binary " + weekBinary.length
+                + " bytes (" + checksum + ")");
+
+        assertEquals(11 + 10, todayBinary.length);
+        assertEquals(11 + 7 * 10, weekBinary.length);
+    }
+
+    private static List<WatchPayload.Day> forecast(int count) {
+        List<WatchPayload.Day> days = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            days.add(new WatchPayload.Day(TODAY + i * DAY_IN_MILLIS,
+                    20.37 + i, -3.14 - i, 800 + i));
+        }
+        return days;
+    }
+}
@@ -0,0 +1,181 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.google.android.gms.wearable.DataItem;
+import com.google.android.gms.wearable.DataMapItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import static com.learn.heddy.sunshinewearever.SunshineWatchFaceUtil.PATH_SUNSHINE_DAY_PREFIX;
+import static com.learn.heddy.sunshinewearever.SunshineWatchFaceUtil.PATH_SUNSHINE_WALLPAPER;
+import static com.learn.heddy.sunshinewearever.SunshineWatchFaceUtil.PAYLOAD_KEY;
+
+/**
+ * Puts the forecast back together from the Sunshine {@link DataItem}s sent by the Phone: one
+ * header item with the unit and one item per day, of which a sync only sends the changed ones.
+ *
+ * Only used on the background thread of {@link SunshineDataLayer}, so it needs no locking.
+ */
+
+class SunshineDataItems {
+    private static final String TAG = "SunshineDataItems";
+
+    private static final long DAY_IN_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final Context mContext;
+
+    /* The forecast as last assembled, by normalized date */
+    private final TreeMap<Long, WatchPayload.Day> mDays = new TreeMap<>();
+    private boolean mMetric = true;
+    private long mTimestampMillis;
+
+    SunshineDataItems(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Starts from a payload saved by {@link WeatherSnapshotStore}, until the Data Layer has
+     * been read.
+     */
+    void restore(WatchPayload payload) {
+        mDays.clear();
+        for (WatchPayload.Day day : payload.days) {
+            mDays.put(day.normalizedDate, day);
+        }
+        mMetric = payload.metric;
+        mTimestampMillis = payload.timestampMillis;
+    }
+
+    // Forgets the days, before reading all of them again
+    void clear() {
+        mDays.clear();
+    }
+
+    /**
+     * Takes in a header or day item.  Call {@link #publish(long)} once the batch is applied.
+     */
+    void applyDataItem(DataItem dataItem) {
+        String path = dataItem.getUri().getPath();
+        byte[] payloadBytes = DataMapItem.fromDataItem(dataItem).getDataMap()
+                .getByteArray(PAYLOAD_KEY);
+
+        if (PATH_SUNSHINE_WALLPAPER.equals(path)) {
+            WatchPayload header = WatchPayload.decode(payloadBytes);
+            if (header == null) {
+                Log.w(TAG, "Ignoring unreadable header " + path);
+                return;
+            }
+            mMetric = header.metric;
+            mTimestampMillis = header.timestampMillis;
+        } else if (path != null && path.startsWith(PATH_SUNSHINE_DAY_PREFIX)) {
+            WatchPayload.Day day = WatchPayload.decodeDay(payloadBytes);
+            if (day == null) {
+                Log.w(TAG, "Ignoring unreadable day " + path);
+                return;
+            }
+            mDays.put(day.normalizedDate, day);
+        } else {
+            Log.w(TAG, "Unknown URI path: " + path);
+        }
+    }
+
+    /**
+     * Drops the day of a deleted item.
+     */
+    void removeDataItem(String path) {
+        if (path == null || !path.startsWith(PATH_SUNSHINE_DAY_PREFIX)) {
+            return;
+        }
+        try {
+            mDays.remove(Long.parseLong(path.substring(PATH_SUNSHINE_DAY_PREFIX.length())));
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Unknown URI path: " + path);
+        }
+    }
+
+    /**
+     * Drops the days before today, then publishes the assembled forecast through
+     * {@link SunshineWatchFaceUtil} and saves it with {@link WeatherSnapshotStore}.
+     */
+    void publish(long receivedAtMs) {
+        // Past days are never shown, don't let them pile up here and in the snapshot
+        Long today = mDays.floorKey(getTodayNormalized());
+        if (today != null) {
+            mDays.headMap(today).clear();
+        }
+        if (mDays.isEmpty()) {
+            return;
+        }
+        WatchPayload payload = new WatchPayload(mMetric, mTimestampMillis,
+                new ArrayList<>(mDays.values()));
+
+        // Save values for the drawing methods, then keep a copy for the next cold start
+        formatAndPublish(mContext, payload, receivedAtMs, false);
+        WeatherSnapshotStore.save(mContext, payload.encode());
+    }
+
+    /**
+     * Formats the payload from today onwards and publishes it.  Unlike {@link #publish(long)} it
+     * neither prunes nor saves a snapshot.
+     *
+     * @param onlyIfEmpty true when restoring from disk, see
+     *                    {@link SunshineWatchFaceUtil#restoreForecast}
+     * @return true if the values were published
+     */
+    static boolean formatAndPublish(Context context, WatchPayload payload, long receivedAtMs,
+                                    boolean onlyIfEmpty) {
+        int today = findToday(payload);
+        if (today < 0) {
+            return false;
+        }
+
+        List<SunshineWatchFaceUtil.ForecastDay> days =
+                new ArrayList<>(payload.days.size() - today);
+        for (int i = today; i < payload.days.size(); i++) {
+            WatchPayload.Day day = payload.days.get(i);
+            String high = TemperatureFormatter.format(day.highCelsius, payload.metric);
+            String low = TemperatureFormatter.format(day.lowCelsius, payload.metric);
+            Bitmap weatherImage = WeatherIconCache.getIcon(context, day.weatherId);
+            days.add(new SunshineWatchFaceUtil.ForecastDay(day.normalizedDate, high, low,
+                    weatherImage));
+        }
+
+        if (onlyIfEmpty) {
+            return SunshineWatchFaceUtil.restoreForecast(days);
+        }
+        SunshineWatchFaceUtil.setForecast(days, receivedAtMs);
+        return true;
+    }
+
+    /*
+     * The Phone sends the forecast from its today onwards.  Pick the index of the day matching
+     * the Watch's local date, or the closest one when the payload is from another day.
+     */
+    private static int findToday(WatchPayload payload) {
+        if (payload.days.isEmpty()) {
+            return -1;
+        }
+
+        long todayNormalized = getTodayNormalized();
+        int closest = 0;
+        for (int i = 0; i < payload.days.size(); i++) {
+            if (payload.days.get(i).normalizedDate > todayNormalized) {
+                break;
+            }
+            closest = i;
+        }
+        return closest;
+    }
+
+    // The Watch's local date as a normalized UTC date
+    private static long getTodayNormalized() {
+        long now = System.currentTimeMillis();
+        return (now + TimeZone.getDefault().getOffset(now)) / DAY_IN_MILLIS * DAY_IN_MILLIS;
+    }
+}
@@ -0,0 +1,166 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.DataApi;
+import com.google.android.gms.wearable.DataItem;
+import com.google.android.gms.wearable.DataItemBuffer;
+import com.google.android.gms.wearable.PutDataRequest;
+import com.google.android.gms.wearable.Wearable;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide access to the Data Layer for the watch.  Holds one {@link GoogleApiClient} that
+ * stays connected between events and one background thread that reads the DataItems and
+ * decodes the icons, so neither {@link SunshineDataListenerService} nor the watch face ever
+ * blocks on them.
+ *
+ * The forecast is assembled by {@link SunshineDataItems} and published through
+ * {@link SunshineWatchFaceUtil}, whose listeners tell the watch face to redraw.  A sync only
+ * carries the changed days, so before the first event is applied the process reads every
+ * forecast item already in the Data Layer.
+ */
+
+class SunshineDataLayer {
+    private static final String TAG = "SunshineDataLayer";
+
+    private static final long CONNECT_TIMEOUT_SECONDS = 30;
+
+    private static SunshineDataLayer sInstance;
+
+    private final Context mContext;
+    private final GoogleApiClient mGoogleApiClient;
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    /* Only touched on mExecutor */
+    private final SunshineDataItems mDataItems;
+    private boolean mLoaded;
+
+    private SunshineDataLayer(Context context) {
+        mContext = context.getApplicationContext();
+        mGoogleApiClient = new GoogleApiClient.Builder(mContext)
+                .addApi(Wearable.API)
+                .build();
+        mDataItems = new SunshineDataItems(mContext);
+    }
+
+    static synchronized SunshineDataLayer getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new SunshineDataLayer(context);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Queues the changes of one event buffer for the background thread and returns immediately.
+     *
+     * @param dataItems    changed DataItems already frozen, they outlive the event buffer
+     * @param deletedPaths paths of the deleted DataItems
+     * @param receivedAtMs {@link SystemClock#elapsedRealtime()} when the event arrived
+     */
+    void applyDataEvents(final List<DataItem> dataItems, final List<String> deletedPaths,
+                         final long receivedAtMs) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!mLoaded) {
+                    // The event only holds the changed days, read the rest first
+                    loadAll();
+                }
+                for (DataItem dataItem : dataItems) {
+                    mDataItems.applyDataItem(dataItem);
+                }
+                for (String path : deletedPaths) {
+                    mDataItems.removeDataItem(path);
+                }
+                mDataItems.publish(receivedAtMs);
+                Log.d(TAG, "Event to data ready: "
+                        + (SystemClock.elapsedRealtime() - receivedAtMs) + " ms");
+            }
+        });
+    }
+
+    /**
+     * Reads the DataItems the Phone put before this process started.  Used by the watch face at
+     * start up since the listener service only hears about changes.
+     */
+    void loadExistingDataItems() {
+        final long requestedAtMs = SystemClock.elapsedRealtime();
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!mLoaded && loadAll()) {
+                    mDataItems.publish(requestedAtMs);
+                }
+            }
+        });
+    }
+
+    /*
+     * Starts from the saved snapshot and replaces it with every forecast item in the Data Layer.
+     * Returns false if the Data Layer could not be read, the snapshot is then all we have.
+     */
+    private boolean loadAll() {
+        WeatherSnapshotStore.Snapshot snapshot = WeatherSnapshotStore.load(mContext);
+        if (snapshot != null) {
+            mDataItems.restore(snapshot.payload);
+        }
+
+        if (!ensureConnected()) {
+            return false;
+        }
+
+        Uri uri = new Uri.Builder()
+                .scheme(PutDataRequest.WEAR_URI_SCHEME)
+                .path(SunshineWatchFaceUtil.PATH_SUNSHINE_WALLPAPER)
+                .build();
+
+        DataItemBuffer dataItems = Wearable.DataApi.getDataItems(mGoogleApiClient, uri,
+                DataApi.FILTER_PREFIX).await();
+        try {
+            if (!dataItems.getStatus().isSuccess()) {
+                Log.e(TAG, "Failed to query DataItems: " + dataItems.getStatus());
+                return false;
+            }
+            // The Data Layer holds the whole forecast, so don't keep days it no longer has
+            if (dataItems.getCount() > 0) {
+                mDataItems.clear();
+            }
+            for (DataItem dataItem : dataItems) {
+                mDataItems.applyDataItem(dataItem);
+            }
+        } finally {
+            dataItems.release();
+        }
+        mLoaded = true;
+        return true;
+    }
+
+    /*
+     * Only called on the background thread, where blocking for the connection is fine.  The
+     * client is kept connected for the following events.
+     */
+    private boolean ensureConnected() {
+        if (mGoogleApiClient.isConnected()) {
+            return true;
+        }
+
+        ConnectionResult connectionResult =
+                mGoogleApiClient.blockingConnect(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        if (!connectionResult.isSuccess()) {
+            Log.e(TAG, "Failed to connect to GoogleApiClient.");
+            return false;
+        }
+        return true;
+    }
+}
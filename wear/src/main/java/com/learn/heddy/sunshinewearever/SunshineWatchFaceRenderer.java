@@ -0,0 +1,465 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorMatrix;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static com.learn.heddy.sunshinewearever.SunshineWatchFaceService.COLOR_VALUE_DEFAULT__AMBIENT_GRAY;
+
+/**
+ * Draws the Sunshine watch face: the time with blinking colons, the date line, the divider and
+ * the weather row of the picked forecast day.  Holds the paints and the cached layouts, but
+ * nothing of the wallpaper engine, so it also runs against an offscreen canvas in the local
+ * render benchmark.
+ *
+ * Only used on the UI thread of the engine.
+ */
+
+class SunshineWatchFaceRenderer {
+
+    private static final Typeface NORMAL_TYPEFACE =
+            Typeface.create("sans-serif-light", Typeface.NORMAL);
+
+    private static final String COLON_STRING = ":";
+
+    /**
+     * Width in pixels of the weather icon on a 280 pixel wide screen.
+     */
+    private static final float ICON_WIDTH_AT_280 = 60f;
+
+    /* "00" to "59", so drawing the time never formats a String */
+    private static final String[] TWO_DIGITS = new String[60];
+    static {
+        for (int i = 0; i < TWO_DIGITS.length; i++) {
+            TWO_DIGITS[i] = (i < 10 ? "0" : "") + i;
+        }
+    }
+
+    private final Resources mResources;
+    private final WatchFaceMetrics mMetrics;
+
+    private boolean mAmbient;
+    private boolean mLowBitAmbient;
+
+    /** Graphics variables */
+    private int mWidth;
+    private int mHeight;
+    private float mCenterX;
+    private float mCenterY;
+    private float mColonWidth;
+
+    private final Paint mBackgroundPaint;
+    private final Paint mHourPaint;
+    private final Paint mMinutePaint;
+    private final Paint mColonPaint;
+    private final Paint mCenterLine;
+    private final Paint mDatePaint;
+    private final Paint mWeatherDataPaint;
+    private final Paint mWeatherDataPaintMuted;
+
+    private final Calendar mCalendar;
+    private final Date mDate;
+    private final SimpleDateFormat mDayOfWeekFormat;
+    private final SimpleDateFormat mForecastDayFormat;
+
+    /* Forecast day shown in the weather row, 0 is today; a tap moves to the next day */
+    private int mForecastIndex;
+
+    /* Offset variables that increments at runtime */
+    private float mWeatherDataXoffset;
+    private float weatherCenterBaseY;
+    private float weatherY10thUnit;
+    private float weatherY20thUnit;
+    private float mDecoDeviderLineHalfLength;
+
+    /* Weather layout of the last drawn TodayData, reused until its version changes */
+    private long mWeatherLayoutVersion = -1;
+    private int mWeatherLayoutIndex;
+    private Bitmap mScaledWeatherImage;
+    private Bitmap mGrayWeatherImage;
+    private String mHighText;
+    private String mLowText;
+    private String mForecastDateText;
+    private float mHighTextWidth;
+    private float mWeatherLayoutXoffset;
+
+    /* Advance of each digit 0-9 in mHourPaint, so the time is measured without native calls */
+    private final float[] mDigitWidths = new float[10];
+
+    /* Time and date layout, redone only when their text changes */
+    private int mTimeLayoutHour = -1;
+    private int mTimeLayoutMinute = -1;
+    private String mHourText;
+    private String mMinuteText;
+    private float mHourTextXoffset;
+    private float mColonXoffset;
+    private float mMinuteTextXoffset;
+    private int mDateLayoutDay = -1;
+    private String mDateLayoutForecastText;
+    private String mDateText;
+    private float mDateXoffset;
+
+    SunshineWatchFaceRenderer(Resources resources, WatchFaceMetrics metrics) {
+        mResources = resources;
+        mMetrics = metrics;
+
+        mBackgroundPaint = new Paint();
+        mBackgroundPaint.setColor(resources.getColor(R.color.colorPrimary));
+
+        mDatePaint = createTextPaint(resources.getColor(R.color.colorPrimaryLight));
+
+        mHourPaint = createTextPaint(Color.WHITE);
+        mMinutePaint = createTextPaint(Color.WHITE);
+        mColonPaint = createTextPaint(Color.WHITE);
+        mCenterLine = createLinePaint(resources.getColor(R.color.colorPrimaryLight));
+
+        // Sunshine weather
+        mWeatherDataPaint = createTextPaint(Color.WHITE);
+        mWeatherDataPaintMuted = createTextPaint(resources.getColor(R.color.colorPrimaryLight));
+
+        mCalendar = Calendar.getInstance();
+        mDate = new Date();
+
+        mDayOfWeekFormat = new SimpleDateFormat("EEE, MMM d YYYY", Locale.getDefault());
+        mDayOfWeekFormat.setCalendar(mCalendar);
+
+        // Forecast days are normalized to UTC midnight, so format them in UTC
+        mForecastDayFormat = new SimpleDateFormat("EEE, MMM d", Locale.getDefault());
+        mForecastDayFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    private static Paint createTextPaint(int textColor) {
+        Paint paint = new Paint();
+        paint.setColor(textColor);
+        paint.setTypeface(NORMAL_TYPEFACE);
+        paint.setAntiAlias(true);
+        return paint;
+    }
+
+    private static Paint createLinePaint(int defaultInteractiveColor) {
+        Paint paint = new Paint();
+        paint.setColor(defaultInteractiveColor);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        paint.setStrokeWidth(2f);
+        paint.setAntiAlias(true);
+        return paint;
+    }
+
+    /**
+     * Sets the base mHeight, mWidth and mCenterX that many offsets are calculated from
+     * throughout draw() and drawSunshineData().
+     */
+    void setSurfaceSize(int width, int height) {
+        mHeight = height;
+        mWidth = width;
+
+        mCenterX = width / 2f;
+        mCenterY = height / 2f;
+
+        /* Useful grid units */
+        weatherY10thUnit = height/10f;
+        weatherY20thUnit = height/20f;
+        weatherCenterBaseY = mCenterY + weatherY20thUnit;
+
+        /* Used to calculate x offset of the decoration horizontal divider line
+        *  We'd like the length to be 0.18 of the width, therefore x-offset is the half of that 0.09f.
+        * */
+        mDecoDeviderLineHalfLength = width * 0.09f;
+        mWeatherLayoutVersion = -1;
+        invalidateTextLayout();
+    }
+
+    /**
+     * Loads the text sizes that have alternate values for round watches.
+     */
+    void setRound(boolean isRound) {
+        float textSize = mResources.getDimension(isRound
+                ? R.dimen.digital_text_size_round : R.dimen.digital_text_size);
+        float weatherTextSize = mResources.getDimension(isRound
+                ? R.dimen.weather_text_size_round : R.dimen.weather_text_size);
+
+        // Time and Calendar
+        mDatePaint.setTextSize(mResources.getDimension(R.dimen.digital_date_text_size)); // Date has the same size for both insets
+        mHourPaint.setTextSize(textSize);
+        mMinutePaint.setTextSize(textSize);
+        mColonPaint.setTextSize(textSize);
+        mColonWidth = mColonPaint.measureText(COLON_STRING);
+        measureDigits();
+
+        // Sunshine weather
+        mWeatherDataPaint.setTextSize(weatherTextSize);
+        mWeatherDataPaintMuted.setTextSize(weatherTextSize);
+        mWeatherLayoutVersion = -1;
+    }
+
+    void setLowBitAmbient(boolean lowBitAmbient) {
+        mLowBitAmbient = lowBitAmbient;
+    }
+
+    /**
+     * Ambient mode turns the Sunshine blues to gray and goes back to today's weather.
+     */
+    void setAmbient(boolean ambient) {
+        mAmbient = ambient;
+
+        if (ambient) {
+            // Back to today, ambient mode shows the time at a glance
+            mForecastIndex = 0;
+            mDatePaint.setColor(COLOR_VALUE_DEFAULT__AMBIENT_GRAY);
+            mCenterLine.setColor(COLOR_VALUE_DEFAULT__AMBIENT_GRAY);
+            mWeatherDataPaintMuted.setColor(COLOR_VALUE_DEFAULT__AMBIENT_GRAY);
+        }
+        else {
+            int ligtBlue = mResources.getColor(R.color.colorPrimaryLight);
+            mCenterLine.setColor(ligtBlue);
+            mDatePaint.setColor(ligtBlue);
+            mWeatherDataPaintMuted.setColor(ligtBlue);
+        }
+
+        if (mLowBitAmbient) {
+            boolean antiAlias = !ambient;  // this means No anti alias during Ambient mode to save battery
+            mDatePaint.setAntiAlias(antiAlias);
+            mHourPaint.setAntiAlias(antiAlias);
+            mMinutePaint.setAntiAlias(antiAlias);
+            mColonPaint.setAntiAlias(antiAlias);
+        }
+    }
+
+    void setTimeZone(TimeZone timeZone) {
+        mCalendar.setTimeZone(timeZone);
+        invalidateTextLayout();
+    }
+
+    /**
+     * Moves the weather row to the next forecast day, wrapping around to today.
+     */
+    void showNextForecastDay(int dayCount) {
+        mForecastIndex = dayCount > 1 ? (mForecastIndex + 1) % dayCount : 0;
+    }
+
+    /**
+     * Fills the digit advance table from the current paint.  Digits of the same font have
+     * fixed advances, so the width of any time string is then a sum.
+     */
+    private void measureDigits() {
+        mHourPaint.getTextWidths("0123456789", mDigitWidths);
+        invalidateTextLayout();
+    }
+
+    private float measureDigits(String digits) {
+        float width = 0f;
+        for (int i = 0; i < digits.length(); i++) {
+            width += mDigitWidths[digits.charAt(i) - '0'];
+        }
+        return width;
+    }
+
+    // Makes the next frame lay out the time and the date again
+    private void invalidateTextLayout() {
+        mTimeLayoutHour = -1;
+        mDateLayoutDay = -1;
+    }
+
+    /**
+     * Draws one frame.
+     *
+     * @param drawColons  false for the off half of the colon blink, ignored in ambient mode
+     * @param showDate    false while a peek card covers the date line
+     * @param sunshineData the last published weather, laid out again only when its version
+     *                     differs from the previous frame's
+     */
+    void draw(Canvas canvas, long now, boolean drawColons, boolean showDate,
+              SunshineWatchFaceUtil.TodayData sunshineData) {
+        // Draw the background.
+        if (mAmbient) {
+            canvas.drawColor(Color.BLACK);
+        } else {
+            canvas.drawRect(0, 0, mWidth, mHeight, mBackgroundPaint);
+        }
+
+        // Draw the time with colon in-between
+        mCalendar.setTimeInMillis(now);
+
+        float yLine1 = mHeight/4 + weatherY10thUnit;    // Y offset for the time
+        float yLine2 = weatherCenterBaseY - weatherY10thUnit;   // Y offset for the calendar
+
+        int hour = mCalendar.get(Calendar.HOUR_OF_DAY); // Sunshine watchface uses 24hour format
+        int minute = mCalendar.get(Calendar.MINUTE);
+        if (hour != mTimeLayoutHour || minute != mTimeLayoutMinute) {
+            layoutTime(hour, minute);
+        }
+
+        canvas.drawText(mHourText, mHourTextXoffset, yLine1, mHourPaint);
+        // Draw if Ambient mode where static colon is displayed or if the flag is true
+        if (mAmbient || drawColons){
+            canvas.drawText(COLON_STRING, mColonXoffset, yLine1, mHourPaint);
+        }
+        canvas.drawText(mMinuteText, mMinuteTextXoffset, yLine1, mHourPaint);
+
+        // Only redo the scaling and measuring when the listener published something new
+        // or another forecast day was picked
+        if (sunshineData.getVersion() != mWeatherLayoutVersion
+                || mForecastIndex != mWeatherLayoutIndex) {
+            layoutSunshineData(sunshineData);
+        }
+
+        // Only render the day of week and date if there is no peek card, so they do not bleed
+        // into each other in ambient mode.
+        if (showDate) {
+            // Day of week, or the date of the forecast day shown below it
+            String forecastText = mForecastIndex > 0 ? mForecastDateText : null;
+            int day = mCalendar.get(Calendar.YEAR) * 1000 + mCalendar.get(Calendar.DAY_OF_YEAR);
+            if (day != mDateLayoutDay || forecastText != mDateLayoutForecastText) {
+                layoutDate(day, forecastText, now);
+            }
+            canvas.drawText(mDateText, mDateXoffset, yLine2, mDatePaint);
+        }
+
+        canvas.drawLine(mCenterX-mDecoDeviderLineHalfLength, weatherCenterBaseY,
+                        mCenterX+mDecoDeviderLineHalfLength, weatherCenterBaseY, mCenterLine);
+        drawSunshineData(canvas);
+    }
+
+    /**
+     * Picks the cached digit strings and sums the digit advances to centre the time.  Called
+     * from draw() once a minute, or after the paints changed.
+     */
+    private void layoutTime(int hour, int minute) {
+        mHourText = TWO_DIGITS[hour];
+        mMinuteText = TWO_DIGITS[minute];
+
+        float hlen = measureDigits(mHourText);
+        float mlen = measureDigits(mMinuteText);
+
+        // First X-offset for the time, then increments for the colon and the minute
+        mHourTextXoffset = (mWidth - (hlen + mColonWidth + mlen))/2;
+        mColonXoffset = mHourTextXoffset + hlen;
+        mMinuteTextXoffset = mColonXoffset + mColonWidth;
+
+        mTimeLayoutHour = hour;
+        mTimeLayoutMinute = minute;
+    }
+
+    /**
+     * Formats and measures the date line.  Called from draw() once a day, when another
+     * forecast day is picked, or after the paints changed.
+     */
+    private void layoutDate(int day, String forecastText, long now) {
+        String dayString;
+        if (forecastText != null) {
+            dayString = forecastText;
+        } else {
+            mDate.setTime(now);
+            dayString = mDayOfWeekFormat.format(mDate);
+        }
+        mDateText = dayString.toUpperCase();
+        mDateXoffset = (mWidth - mDatePaint.measureText(mDateText))/2;
+
+        mDateLayoutDay = day;
+        mDateLayoutForecastText = forecastText;
+    }
+
+    private void drawSunshineData(Canvas canvas) {
+        float spaceLen = weatherY20thUnit;  // My design decision of gaps that look nice for the weather data display
+        float yLine3 = weatherCenterBaseY + weatherY10thUnit * 2;
+
+        mWeatherDataXoffset = mWeatherLayoutXoffset;
+
+        if (mScaledWeatherImage!=null) {
+            if (mAmbient){
+                if (mGrayWeatherImage == null) {
+                    mGrayWeatherImage = buildGrayscaleBitmap(mScaledWeatherImage);
+                    mMetrics.recordBitmapCache(false);
+                } else {
+                    mMetrics.recordBitmapCache(true);
+                }
+                canvas.drawBitmap(mGrayWeatherImage, mWeatherDataXoffset, weatherCenterBaseY + weatherY20thUnit, null);
+
+            } else {
+                canvas.drawBitmap(mScaledWeatherImage, mWeatherDataXoffset, weatherCenterBaseY + weatherY20thUnit, null);
+            }
+
+            mWeatherDataXoffset = mWeatherDataXoffset + spaceLen/2 + mScaledWeatherImage.getWidth();
+        }
+
+        canvas.drawText(mHighText, mWeatherDataXoffset, yLine3, mWeatherDataPaint);
+        canvas.drawText(mLowText,
+                mWeatherDataXoffset + spaceLen + mHighTextWidth/2,
+                yLine3,
+                mWeatherDataPaintMuted);
+    }
+
+    /**
+     * Scales the weather image and measures the texts of the shown day of one TodayData
+     * snapshot.  Called from draw() only when the snapshot version or the shown day differs
+     * from the one laid out last.
+     */
+    private void layoutSunshineData(SunshineWatchFaceUtil.TodayData sunshineData) {
+        if (mForecastIndex >= sunshineData.getDayCount()) {
+            // The new forecast is shorter, start over from today
+            mForecastIndex = 0;
+        }
+        SunshineWatchFaceUtil.ForecastDay day = sunshineData.getDay(mForecastIndex);
+        Bitmap weatherImage = day.getWeatherImage();
+        int h;
+        int w;
+        float iLen = 0f;
+        float spaceLen = weatherY20thUnit;
+
+        mScaledWeatherImage = null;
+        mGrayWeatherImage = null;
+        if (weatherImage!=null){
+            float resolutionFactor = ((float) mWidth)/280f; // My design decision was to base the 280dp screen; e.g. 480f/ 280f
+            // My decision on icon image scale - half of the xxhdpi Phone icon, so 60px at 280.
+            // The icon is now decoded at the watch's own density, so scale from its width.
+            float scale = resolutionFactor * ICON_WIDTH_AT_280 / weatherImage.getWidth();
+
+            w = (int) (weatherImage.getWidth() * scale);
+            h = (int) (weatherImage.getHeight() * scale);
+
+            mScaledWeatherImage = Bitmap.createScaledBitmap(weatherImage, w, h, false);
+            mMetrics.recordBitmapCache(false);
+            iLen = mScaledWeatherImage.getWidth();
+        }
+
+        mHighText = day.getHigh()!=null? day.getHigh(): "Today's High";
+        mLowText = day.getLow()!=null? day.getLow(): " Low";
+        mForecastDateText = mForecastIndex > 0
+                ? mForecastDayFormat.format(new Date(day.getNormalizedDate())) : null;
+        mHighTextWidth = mWeatherDataPaint.measureText(mHighText);
+
+        float allWeatherLen = iLen
+                + mHighTextWidth
+                + mWeatherDataPaint.measureText(mLowText);
+
+        mWeatherLayoutXoffset = (mWidth-allWeatherLen)/2 + spaceLen;
+        mWeatherLayoutVersion = sunshineData.getVersion();
+        mWeatherLayoutIndex = mForecastIndex;
+    }
+
+    private static Bitmap buildGrayscaleBitmap(Bitmap colorBitmap) {
+        Bitmap grayBitmap = Bitmap.createBitmap(
+                colorBitmap.getWidth(),
+                colorBitmap.getHeight(),
+                Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(grayBitmap);
+        Paint grayPaint = new Paint();
+        ColorMatrix colorMatrix = new ColorMatrix();
+        colorMatrix.setSaturation(0);
+        ColorMatrixColorFilter filter = new ColorMatrixColorFilter(colorMatrix);
+        grayPaint.setColorFilter(filter);
+        canvas.drawBitmap(colorBitmap, 0, 0, grayPaint);
+        return grayBitmap;
+    }
+}
@@ -4,18 +4,13 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.content.res.Resources;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.ColorMatrix;
-import android.graphics.ColorMatrixColorFilter;
-import android.graphics.Paint;
 import android.graphics.Rect;
-import android.graphics.Typeface;
 import android.os.Bundle;
+import android.os.Debug;
 import android.os.Handler;
 import android.os.Message;
+import android.os.SystemClock;
 import android.support.wearable.watchface.CanvasWatchFaceService;
 import android.support.wearable.watchface.WatchFaceService;
 import android.support.wearable.watchface.WatchFaceStyle;
@@ -23,13 +18,10 @@ import android.util.Log;
 import android.view.SurfaceHolder;
 import android.view.WindowInsets;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.lang.ref.WeakReference;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
 import java.util.TimeZone;
-import java.util.concurrent.TimeUnit;
 
 import static android.graphics.Color.parseColor;
 
@@ -51,11 +43,6 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
 
     private static final String TAG = "SunshineWFService";
 
-    private static final Typeface NORMAL_TYPEFACE =
-            Typeface.create("sans-serif-light", Typeface.NORMAL);
-    private static final Typeface BOLD_TYPEFACE =
-            Typeface.create("sans-serif-light", Typeface.BOLD);
-
     /**
      * Name of the default ambient mode for Calendar and Min temperature texts
      */
@@ -63,25 +50,45 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
     public static final int COLOR_VALUE_DEFAULT__AMBIENT_GRAY = parseColor(COLOR_NAME_DEFAULT_AMBIENT_GRAY);
 
     /**
-     * Update rate in milliseconds for normal (not ambient and not mute) mode. We update twice
-     * a second to blink the colons.
+     * Time between two colon blink edges in normal (not ambient and not mute) mode. The colons
+     * show for the first half of each second.  In mute mode only the minute changes count, like
+     * in ambient mode; see {@link TickScheduler}.
      */
-    private static final long NORMAL_UPDATE_RATE_MS = 500;
-
-    /**
-     * Update rate in milliseconds for mute mode. We update every minute, like in ambient mode.
-     */
-    private static final long MUTE_UPDATE_RATE_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long COLON_BLINK_MS = 500;
     /**
      * Handler message id for updating the time periodically in interactive mode.
      */
     private static final int MSG_UPDATE_TIME = 0;
 
+    /* Recorder of the current engine, read by dump() on a binder thread */
+    private volatile WatchFaceMetrics mMetrics;
+
     @Override
     public Engine onCreateEngine() {
         return new Engine();
     }
 
+    /**
+     * Adds the {@link WatchFaceMetrics} totals to
+     * {@code adb shell dumpsys activity service .../.SunshineWatchFaceService}.
+     */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter out, String[] args) {
+        super.dump(fd, out, args);
+
+        out.println("Sunshine watch face metrics:");
+        WatchFaceMetrics metrics = mMetrics;
+        if (metrics == null) {
+            out.println("  no engine");
+            return;
+        }
+        metrics.dump("  ", out);
+        if (metrics.isEnabled()) {
+            out.println("  weather icon cache: " + WeatherIconCache.getHitCount() + " hits, "
+                    + WeatherIconCache.getMissCount() + " misses");
+        }
+    }
+
     private static class EngineHandler extends Handler {
         private final WeakReference<SunshineWatchFaceService.Engine> mWeakReference;
 
@@ -104,58 +111,45 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
 
     private class Engine extends CanvasWatchFaceService.Engine {
 
-        private final String COLON_STRING = ":";
         final Handler mUpdateTimeHandler = new EngineHandler(this);
         boolean mRegisteredTimeZoneReceiver = false;
-        Paint mBackgroundPaint;
-        Paint mTextPaint;
-        Calendar mCalendar;
 
         final BroadcastReceiver mTimeZoneReceiver = new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
-                mCalendar.setTimeZone(TimeZone.getDefault());
+                // Time zone or wall clock changed, so the next tick moved as well
+                mRenderer.setTimeZone(TimeZone.getDefault());
+                mTickScheduler.setTimeZone(TimeZone.getDefault());
                 invalidate();
+                updateTimer();
             }
         };
 
-        /** used for blinking colon flag */
-        boolean mShouldDrawColons;
-
-        /** Graphics variables */
-        private int mWidth;
-        private int mHeight;
-        private float mCenterX;
-        private float mCenterY;
-        float mColonWidth;
-
-        Paint mHourPaint;
-        Paint mMinutePaint;
-        Paint mColonPaint;
-        Paint mCenterLine;
-        Paint mDatePaint;
-        Paint mWeatherDataPaint;
-        Paint mWeatherDataPaintMuted;
-
-        Date mDate;
-        SimpleDateFormat mDayOfWeekFormat;
-
-        /* Offset variables that increments at runtime */
-        private float mHourXoffset;
-        private float mWeatherDataXoffset;
-        private float weatherCenterBaseY;
-        private float weatherY10thUnit;
-        private float weatherY20thUnit;
-        private float mDecoDeviderLineHalfLength;
+        /** Paints, layouts and drawing of the face; the engine only feeds it */
+        SunshineWatchFaceRenderer mRenderer;
 
-        /**
-         * Whether the display supports fewer bits for each color in ambient mode. When true, we
-         * disable anti-aliasing in ambient mode.
-         */
-        boolean mLowBitAmbient;
+        /* Frame costs for dumpsys, see WatchFaceMetrics */
+        private WatchFaceMetrics mFrameMetrics;
 
-        /** How often {@link #mUpdateTimeHandler} ticks in milliseconds. */
-        long mInteractiveUpdateRateMs = NORMAL_UPDATE_RATE_MS;
+        /* Weather data arrives on the Data Layer thread, so only post a redraw from there */
+        final SunshineWatchFaceUtil.OnTodayDataChangedListener mTodayDataChangedListener =
+                new SunshineWatchFaceUtil.OnTodayDataChangedListener() {
+                    @Override
+                    public void onTodayDataChanged() {
+                        postInvalidate();
+                    }
+                };
+
+        /* Start-up bookkeeping for the time-to-first-real-frame measurement */
+        private long mCreatedAtMs;
+        private boolean mFirstRealFrameLogged;
+        private long mTimedVersion;
+
+        /** Picks the delay of each {@link #mUpdateTimeHandler} tick. */
+        TickScheduler mTickScheduler;
+
+        /** Colons don't blink in mute mode, so the timer only wakes for minute changes. */
+        boolean mMuteMode;
 
         @Override
         public void onCreate(SurfaceHolder holder) {
@@ -165,81 +159,61 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
                     .setCardPeekMode(WatchFaceStyle.PEEK_MODE_VARIABLE)
                     .setBackgroundVisibility(WatchFaceStyle.BACKGROUND_VISIBILITY_INTERRUPTIVE)
                     .setShowSystemUiTime(false)
+                    .setAcceptsTapEvents(true)
                     .build());
-            Resources resources = SunshineWatchFaceService.this.getResources();
 
-            mBackgroundPaint = new Paint();
-            mBackgroundPaint.setColor(resources.getColor(R.color.colorPrimary));
+            mFrameMetrics = new WatchFaceMetrics(
+                    Log.isLoggable(WatchFaceMetrics.TAG, Log.DEBUG));
+            if (mFrameMetrics.isEnabled()) {
+                // Deprecated but still counted by ART, and only on when the metrics are
+                Debug.startAllocCounting();
+            }
+            mMetrics = mFrameMetrics;
 
-            mDatePaint = createTextPaint(resources.getColor(R.color.colorPrimaryLight));
+            mRenderer = new SunshineWatchFaceRenderer(
+                    SunshineWatchFaceService.this.getResources(), mFrameMetrics);
+            mTickScheduler = new TickScheduler(TickScheduler.SYSTEM_CLOCK, COLON_BLINK_MS,
+                    TimeZone.getDefault());
 
-            mHourPaint = createTextPaint(Color.WHITE);
-            mMinutePaint = createTextPaint(Color.WHITE);
+            mCreatedAtMs = SystemClock.elapsedRealtime();
+            restoreWeatherData();
 
-            mTextPaint = new Paint();
-            mTextPaint = createTextPaint(Color.WHITE);
-            mColonPaint = createTextPaint(Color.WHITE);
-            mCenterLine = createLinePaint(resources.getColor(R.color.colorPrimaryLight));     //mInteractiveMinuteDigitsColor);
+            // The listener service only hears about changes, so also read what the Phone put
+            // before this process started; it replaces the restored snapshot once decoded.
+            SunshineWatchFaceUtil.addOnTodayDataChangedListener(mTodayDataChangedListener);
+            SunshineDataLayer.getInstance(SunshineWatchFaceService.this).loadExistingDataItems();
+        }
 
-            mCalendar = Calendar.getInstance();
-            mDate = new Date();
-            initFormats();
-//            initializeWeatherGraphics();
+        /**
+         * After a process restart nothing has been received yet, so draw the weather saved by
+         * {@link WeatherSnapshotStore}.  The file is tiny and memory-mapped and the icon comes from
+         * our own resources, so this is cheap enough for onCreate().
+         */
+        private void restoreWeatherData() {
+            if (SunshineWatchFaceUtil.getTodayDataVersion() != 0) {
+                return;
+            }
 
-        }
+            WeatherSnapshotStore.Snapshot snapshot =
+                    WeatherSnapshotStore.load(SunshineWatchFaceService.this);
+            if (snapshot == null) {
+                return;
+            }
 
-        private void initFormats() {
-            mDayOfWeekFormat = new SimpleDateFormat("EEE, MMM d YYYY", Locale.getDefault());
-            mDayOfWeekFormat.setCalendar(mCalendar);
+            SunshineDataItems.formatAndPublish(SunshineWatchFaceService.this, snapshot.payload,
+                    0L, true);
         }
 
-//        private void initializeWeatherGraphics() {
-////            if (Log.isLoggable(TAG, Log.DEBUG)) {
-//            Log.d(TAG, "initializeWeatherGraphics()");
-////            }
-//            Resources resources = SunshineWatchFaceService.this.getResources();
-//            mWeatherDataPaint = new Paint();
-//            mWeatherDataPaint.setColor(Color.WHITE);
-//            mWeatherDataPaint.setTextSize(resources.getDimension(R.dimen.weather_data_size));//(WEATHER_DATA_TEXT_SIZE);
-////            mWeatherDataPaint.setTypeface(Typeface.create(Typeface.SERIF, Typeface.ITALIC));
-//            mWeatherDataPaint.setTypeface(NORMAL_TYPEFACE);
-////            mWeatherDataPaint.setTextAlign(Paint.Align.CENTER);
-//            mWeatherDataPaint.setAntiAlias(true);
-//
-//            mWeatherDataPaintMuted = new Paint();
-//            mWeatherDataPaintMuted.setColor(resources.getColor(R.color.colorPrimaryLight));
-//            mWeatherDataPaintMuted.setTextSize(WEATHER_DATA_TEXT_SIZE);
-////            mWeatherDataPaintMuted.setTypeface(Typeface.create(Typeface.SERIF, Typeface.ITALIC));
-//            mWeatherDataPaintMuted.setTypeface(NORMAL_TYPEFACE);
-////            mWeatherDataPaintMuted.setTextAlign(Paint.Align.CENTER);
-//            mWeatherDataPaintMuted.setAntiAlias(true);
-//
-//        }
-
         @Override
         public void onDestroy() {
             mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
+            SunshineWatchFaceUtil.removeOnTodayDataChangedListener(mTodayDataChangedListener);
+            if (mFrameMetrics.isEnabled()) {
+                Debug.stopAllocCounting();
+            }
             super.onDestroy();
         }
 
-        private Paint createTextPaint(int textColor) {
-            Paint paint = new Paint();
-            paint.setColor(textColor);
-            paint.setTypeface(NORMAL_TYPEFACE);
-            //paint.setTextSize(40f); //72f);
-            paint.setAntiAlias(true);
-            return paint;
-        }
-
-        private Paint createLinePaint(int defaultInteractiveColor) {
-            Paint paint = new Paint();
-            paint.setColor(defaultInteractiveColor);
-            paint.setStrokeCap(Paint.Cap.ROUND);
-            paint.setStrokeWidth(2f);
-            paint.setAntiAlias(true);
-            return paint;
-        }
-
         @Override
         public void onVisibilityChanged(boolean visible) {
             super.onVisibilityChanged(visible);
@@ -248,7 +222,8 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
                 registerReceiver();
 
                 // Update time zone in case it changed while we weren't visible.
-                mCalendar.setTimeZone(TimeZone.getDefault());
+                mRenderer.setTimeZone(TimeZone.getDefault());
+                mTickScheduler.setTimeZone(TimeZone.getDefault());
                 invalidate(); //@@@??? sample Digital WF does not do this , where is this coming from??
             } else {
                 unregisterReceiver();
@@ -265,6 +240,7 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
             }
             mRegisteredTimeZoneReceiver = true;
             IntentFilter filter = new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED);
+            filter.addAction(Intent.ACTION_TIME_CHANGED);
             SunshineWatchFaceService.this.registerReceiver(mTimeZoneReceiver, filter);
         }
 
@@ -281,26 +257,7 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
             super.onApplyWindowInsets(insets);
 
             // Load resources that have alternate values for round watches.
-            Resources resources = SunshineWatchFaceService.this.getResources();
-            boolean isRound = insets.isRound();
-
-            float textSize = resources.getDimension(isRound
-                    ? R.dimen.digital_text_size_round : R.dimen.digital_text_size);
-            float weatherTextSize = resources.getDimension(isRound
-                    ? R.dimen.weather_text_size_round : R.dimen.weather_text_size);
-
-            // Time and Calendar
-            mDatePaint.setTextSize(resources.getDimension(R.dimen.digital_date_text_size)); // Date has the same size for both insets
-            mHourPaint.setTextSize(textSize);
-            mMinutePaint.setTextSize(textSize);
-            mColonPaint.setTextSize(textSize);
-            mColonWidth = mColonPaint.measureText(COLON_STRING);
-
-            // Sunshine weather
-            mWeatherDataPaint = createTextPaint(Color.WHITE);
-            mWeatherDataPaint.setTextSize(weatherTextSize);
-            mWeatherDataPaintMuted = createTextPaint(resources.getColor(R.color.colorPrimaryLight));
-            mWeatherDataPaintMuted.setTextSize(weatherTextSize);
+            mRenderer.setRound(insets.isRound());
         }
 
         @Override
@@ -313,7 +270,7 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
             mHourPaint.setTypeface(burnInProtection ? NORMAL_TYPEFACE : BOLD_TYPEFACE);
             */
 
-            mLowBitAmbient = properties.getBoolean(PROPERTY_LOW_BIT_AMBIENT, false);
+            mRenderer.setLowBitAmbient(properties.getBoolean(PROPERTY_LOW_BIT_AMBIENT, false));
         }
 
         @Override
@@ -327,26 +284,7 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
 
             super.onAmbientModeChanged(inAmbientMode);
 
-            if (isInAmbientMode()){
-                mDatePaint.setColor(COLOR_VALUE_DEFAULT__AMBIENT_GRAY);
-                mCenterLine.setColor(COLOR_VALUE_DEFAULT__AMBIENT_GRAY);
-                mWeatherDataPaintMuted.setColor(COLOR_VALUE_DEFAULT__AMBIENT_GRAY);
-            }
-            else {
-                Resources resources = SunshineWatchFaceService.this.getResources();
-                int ligtBlue = resources.getColor(R.color.colorPrimaryLight);
-                mCenterLine.setColor(ligtBlue);
-                mDatePaint.setColor(ligtBlue);
-                mWeatherDataPaintMuted.setColor(ligtBlue);
-            }
-
-            if (mLowBitAmbient) {
-                boolean antiAlias = !inAmbientMode;  // this means No anti alias during Ambient mode to save battery
-                mDatePaint.setAntiAlias(antiAlias);
-                mHourPaint.setAntiAlias(antiAlias);
-                mMinutePaint.setAntiAlias(antiAlias);
-                mColonPaint.setAntiAlias(antiAlias);
-            }
+            mRenderer.setAmbient(isInAmbientMode());
             invalidate();
 
             // Whether the timer should be running depends on whether we're visible (as well as
@@ -354,6 +292,21 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
             updateTimer();
         }
 
+        /**
+         * A tap moves the weather row to the next forecast day, wrapping around to today.
+         */
+        @Override
+        public void onTapCommand(int tapType, int x, int y, long eventTime) {
+            if (tapType != TAP_TYPE_TAP) {
+                return;
+            }
+
+            int dayCount = SunshineWatchFaceUtil.fetchSunshineData(getApplicationContext())
+                    .getDayCount();
+            mRenderer.showNextForecastDay(dayCount);
+            invalidate();
+        }
+
         @Override
         public void onInterruptionFilterChanged(int interruptionFilter) {
 //            if (Log.isLoggable(TAG, Log.DEBUG)) {
@@ -363,14 +316,14 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
 
             boolean inMuteMode = interruptionFilter == WatchFaceService.INTERRUPTION_FILTER_NONE;
             // We only need to update once a minute in mute mode.
-            setInteractiveUpdateRateMs(inMuteMode ? MUTE_UPDATE_RATE_MS : NORMAL_UPDATE_RATE_MS);
+            setMuteMode(inMuteMode);
         }
 
-        public void setInteractiveUpdateRateMs(long updateRateMs) {
-            if (updateRateMs == mInteractiveUpdateRateMs) {
+        public void setMuteMode(boolean inMuteMode) {
+            if (inMuteMode == mMuteMode) {
                 return;
             }
-            mInteractiveUpdateRateMs = updateRateMs;
+            mMuteMode = inMuteMode;
 
             // Stop and restart the timer so the new update rate takes effect immediately.
             if (shouldTimerBeRunning()) {
@@ -380,127 +333,52 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
 
         @Override
         public void onDraw(Canvas canvas, Rect bounds) {
+            // Only read the clock and allocation counter when someone asked for the metrics
+            boolean measure = mFrameMetrics.isEnabled();
+            long drawStartNanos = 0;
+            int drawStartAllocations = 0;
+            if (measure) {
+                drawStartNanos = System.nanoTime();
+                drawStartAllocations = Debug.getThreadAllocCount();
+            }
 
             // Show colons for the first half of each second so the colons blink on when the time
             // updates.
-            mShouldDrawColons = (System.currentTimeMillis() % 1000) < 500;
-
-            // Draw the background.
-            if (isInAmbientMode()) {
-                canvas.drawColor(Color.BLACK);
-            } else {
-                canvas.drawRect(0, 0, bounds.width(), bounds.height(), mBackgroundPaint);
-            }
+            long now = mTickScheduler.currentTimeMillis();
+            boolean drawColons = (now % 1000) < COLON_BLINK_MS;
 
-            // Draw the time with colon in-between
-            long now = System.currentTimeMillis();
-            mCalendar.setTimeInMillis(now);
-            mDate.setTime(now);
-
-            String hourString = formatTwoDigitNumber(mCalendar.get(Calendar.HOUR_OF_DAY)); // Sunshine watchface uses 24hour format
-            float hlen = mHourPaint.measureText(hourString);
-
-            float clen = mColonWidth;
-
-            String minuteString = formatTwoDigitNumber(mCalendar.get(Calendar.MINUTE));
-            float mlen = mMinutePaint.measureText(minuteString);
-
-            float yLine1 = mHeight/4 + weatherY10thUnit;    // Y offset for the time
-            float yLine2 = weatherCenterBaseY - weatherY10thUnit;   // Y offset for the calendar
-
-            // First X-offset for the time
-            mHourXoffset = (mWidth - (hlen+clen+mlen))/2;
-            canvas.drawText(hourString, mHourXoffset, yLine1, mHourPaint);
-
-            // increment for the colon
-            mHourXoffset += hlen;
-            // Draw if Ambient mode where static colon is displayed or if the flag is true
-            if (isInAmbientMode() || mShouldDrawColons){
-                canvas.drawText(COLON_STRING, mHourXoffset, yLine1, mHourPaint);
-            }
-
-            // increment for the minute finally!
-            mHourXoffset += clen;
-            canvas.drawText(minuteString, mHourXoffset, yLine1, mHourPaint);
+            SunshineWatchFaceUtil.TodayData sunshineData =
+                    SunshineWatchFaceUtil.fetchSunshineData(getApplicationContext());
 
             // Only render the day of week and date if there is no peek card, so they do not bleed
             // into each other in ambient mode.
-            if (getPeekCardPosition().isEmpty()) {
-                // Day of week
-                String dayString = mDayOfWeekFormat.format(mDate);
-                if (dayString!=null){
-                    dayString = dayString.toUpperCase();
-                }
+            mRenderer.draw(canvas, now, drawColons, getPeekCardPosition().isEmpty(), sunshineData);
 
-                mWeatherDataXoffset = (mWidth - mDatePaint.measureText(dayString))/2;
-                canvas.drawText(dayString, mWeatherDataXoffset, yLine2, mDatePaint);
+            if (sunshineData.getVersion() != mTimedVersion) {
+                logDataLatency(sunshineData);
             }
 
-            canvas.drawLine(mCenterX-mDecoDeviderLineHalfLength, weatherCenterBaseY,
-                            mCenterX+mDecoDeviderLineHalfLength, weatherCenterBaseY, mCenterLine);
-            drawSunshineData(canvas);
+            if (measure) {
+                mFrameMetrics.recordFrame(System.nanoTime() - drawStartNanos,
+                        Debug.getThreadAllocCount() - drawStartAllocations, isInAmbientMode());
+            }
         }
 
-        private void drawSunshineData(Canvas canvas) {
-            Bitmap weatherImage=null;
-            Bitmap scaledWeatherImage = null;
-            String highOnly = "High";
-            String lowOnly = "Low";
-
-            int h;
-            int w;
-            float iLen = 0f;
-            float spaceLen = weatherY20thUnit;  // My design decision of gaps that look nice for the weather data display
-            float yLine3 = weatherCenterBaseY + weatherY10thUnit * 2;
-
-            SunshineWatchFaceUtil.TodayData sunshineData = SunshineWatchFaceUtil.fetchSunshineData(getApplicationContext());
-            if (sunshineData!=null) {
-                weatherImage = sunshineData.getWeatherImage();
-                if (weatherImage!=null){
-                    float resolutionFactor = ((float) mWidth)/280f; // My design decision was to base the 280dp screen; e.g. 480f/ 280f
-                    float scale = resolutionFactor * .5f;           // My decision on icon image scale - half of the Phone icon, so .5f
-
-                    w = (int) (weatherImage.getWidth() * scale);
-                    h = (int) (weatherImage.getHeight() * scale);
-
-                    scaledWeatherImage = weatherImage.createScaledBitmap(weatherImage, w, h, false);
-                    iLen = scaledWeatherImage.getWidth();
-                }
-
-                highOnly = sunshineData.getHighOnly()!=null? sunshineData.getHighOnly(): "Today's High";
-                lowOnly = sunshineData.getLowOnly()!=null? sunshineData.getLowOnly(): " Low";
-           }
-
-            float allWeatherLen = iLen
-                    + mWeatherDataPaint.measureText(highOnly)
-                    + mWeatherDataPaint.measureText(lowOnly);
-
-
-            mWeatherDataXoffset = (mWidth-allWeatherLen)/2 + spaceLen;
-
-            Log.d(TAG, "iLen: "+ iLen + " highOnly "+mWeatherDataPaint.measureText(highOnly)+" xOffset " + mWeatherDataXoffset);
-
-            if (scaledWeatherImage!=null) {
-                if (isInAmbientMode()){
-                    Bitmap grayBitmap = buildGrayscaleBitmap(scaledWeatherImage);
-                    canvas.drawBitmap(grayBitmap, mWeatherDataXoffset, weatherCenterBaseY + weatherY20thUnit, null);
-
-                } else {
-                    canvas.drawBitmap(scaledWeatherImage, mWeatherDataXoffset, weatherCenterBaseY + weatherY20thUnit, null);
-                }
-
-                mWeatherDataXoffset = mWeatherDataXoffset + spaceLen/2 + scaledWeatherImage.getWidth();
+        /*
+         * Logs how long new weather data took to reach the screen.  Called from onDraw() once per
+         * published TodayData.
+         */
+        private void logDataLatency(SunshineWatchFaceUtil.TodayData sunshineData) {
+            mTimedVersion = sunshineData.getVersion();
+            if (sunshineData.getReceivedAtMs() > 0) {
+                Log.d(TAG, "Event to frame: "
+                        + (SystemClock.elapsedRealtime() - sunshineData.getReceivedAtMs()) + " ms");
+            }
+            if (!mFirstRealFrameLogged && sunshineData.getVersion() > 0) {
+                mFirstRealFrameLogged = true;
+                Log.i(TAG, "First frame with weather data "
+                        + (SystemClock.elapsedRealtime() - mCreatedAtMs) + " ms after onCreate");
             }
-
-            canvas.drawText(highOnly, mWeatherDataXoffset, yLine3, mWeatherDataPaint);
-            canvas.drawText(lowOnly,
-                    mWeatherDataXoffset + spaceLen + mWeatherDataPaint.measureText(highOnly)/2,
-                    yLine3,
-                    mWeatherDataPaintMuted);
-    }
-
-        private String formatTwoDigitNumber(int hour) {
-            return String.format("%02d", hour);
         }
 
         /**
@@ -523,21 +401,19 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
         }
 
         /**
-         * Handle updating the time periodically in interactive mode.
+         * Handle updating the time in interactive mode, sleeping until the next visible change.
          */
         private void handleUpdateTimeMessage() {
             invalidate();
             if (shouldTimerBeRunning()) {
-                long timeMs = System.currentTimeMillis();
-                long delayMs = mInteractiveUpdateRateMs - (timeMs % mInteractiveUpdateRateMs);
+                long delayMs = mTickScheduler.delayUntilNextChange(!mMuteMode);
                 mUpdateTimeHandler.sendEmptyMessageDelayed(MSG_UPDATE_TIME, delayMs);
             }
         }
 
         /**
          *  VERY IMPORTANT Callback where we are using the realtime width and height
-         *  to set the base mHeight, mWidth and mCenterX that many offsets are calculated throughout
-         *  onDraw() and drawSunshineData()
+         *  to set the base sizes that many offsets of the renderer are calculated from
          *
          * @param holder
          * @param format
@@ -548,36 +424,7 @@ public class SunshineWatchFaceService extends CanvasWatchFaceService {
         public void onSurfaceChanged(SurfaceHolder holder, int format, int width, int height) {
             super.onSurfaceChanged(holder, format, width, height);
 
-            mHeight = height;
-            mWidth = width;
-
-            mCenterX = holder.getSurfaceFrame().exactCenterX();
-            mCenterY = holder.getSurfaceFrame().exactCenterY();
-
-            /* Useful grid units */
-            weatherY10thUnit = height/10f;
-            weatherY20thUnit = height/20f;
-            weatherCenterBaseY = mCenterY + weatherY20thUnit;
-
-            /* Used to calculate x offset of the decoration horizontal divider line
-            *  We'd like the length to be 0.18 of the width, therefore x-offset is the half of that 0.09f.
-            * */
-            mDecoDeviderLineHalfLength = width * 0.09f;
-        }
-
-        private Bitmap buildGrayscaleBitmap(Bitmap colorBitmap) {
-            Bitmap grayBitmap = Bitmap.createBitmap(
-                    colorBitmap.getWidth(),
-                    colorBitmap.getHeight(),
-                    Bitmap.Config.ARGB_8888);
-            Canvas canvas = new Canvas(grayBitmap);
-            Paint grayPaint = new Paint();
-            ColorMatrix colorMatrix = new ColorMatrix();
-            colorMatrix.setSaturation(0);
-            ColorMatrixColorFilter filter = new ColorMatrixColorFilter(colorMatrix);
-            grayPaint.setColorFilter(filter);
-            canvas.drawBitmap(colorBitmap, 0, 0, grayPaint);
-            return grayBitmap;
+            mRenderer.setSurfaceSize(width, height);
         }
     }
 }
@@ -3,83 +3,191 @@ package com.learn.heddy.sunshinewearever;
 import android.content.Context;
 import android.graphics.Bitmap;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Created by hyeryungpark on 2/16/17.
+ *
+ * The listener service writes the weather values on its own thread while the watch face reads
+ * them from onDraw() on the UI thread.  Each update is published as one immutable
+ * {@link TodayData} through a single atomic reference, so a reader never sees the high of one
+ * update next to the low or image of another.
+ *
+ * Besides today the snapshot carries the upcoming days of the forecast, formatted as well.
  */
 
 public class SunshineWatchFaceUtil {
     public static final String TAG = "SunshineWatchFaceUtil";
     /* *
      * The path for the {@link DataItem} containing {@link DigitalWatchFaceService} configuration.
+     * The Phone sends a header item at this path and one item per forecast day under
+     * PATH_SUNSHINE_DAY_PREFIX, named by the day's normalized date.
      */
     public static final String PATH_SUNSHINE_WALLPAPER = "/sunshinewearever";
-    public static final String HIGH_LOW_KEY = "high_low";
-    public static final String BITMAP_KEY = "bitmap";
+    public static final String PATH_SUNSHINE_DAY_PREFIX = PATH_SUNSHINE_WALLPAPER + "/day/";
+    public static final String PAYLOAD_KEY = "payload";
+
+    private static final AtomicReference<TodayData> sTodayData =
+            new AtomicReference<>(new TodayData());
 
-    private static String mHigh;
-    private static String mLow;
-    private static Bitmap mBitmap;
+    private static final List<OnTodayDataChangedListener> sListeners =
+            new CopyOnWriteArrayList<>();
 
     private Context mContext;
 
+    /**
+     * Told about every newly published TodayData.  Called on the publishing thread, so
+     * implementations must not touch the UI directly.
+     */
+    public interface OnTodayDataChangedListener {
+        void onTodayDataChanged();
+    }
+
+    public static void addOnTodayDataChangedListener(OnTodayDataChangedListener listener){
+        sListeners.add(listener);
+    }
+
+    public static void removeOnTodayDataChangedListener(OnTodayDataChangedListener listener){
+        sListeners.remove(listener);
+    }
+
     public SunshineWatchFaceUtil(Context context){
         super();
         mContext = context;
     }
 
-    public static void setTodayData(String tempratureString, Bitmap wBitmap){
-        int idx = 0;
-        int len = 0;
-
-        if (tempratureString!=null) {
-            len = tempratureString.length();
-            if ((idx = tempratureString.indexOf("/")) > -1) {
-                mHigh = tempratureString.substring(0, idx);
-                if (len > idx) {
-                    mLow = tempratureString.substring(idx + 1);
-                }
+    /**
+     * @param days         today first, followed by the upcoming days
+     * @param receivedAtMs {@link android.os.SystemClock#elapsedRealtime()} when the Phone's
+     *                     event arrived, kept with the snapshot for latency measurements
+     */
+    public static void setForecast(List<ForecastDay> days, long receivedAtMs){
+        publish(days, receivedAtMs, false);
+    }
+
+    /**
+     * Same as setForecast() but only takes effect while nothing has been published in this
+     * process yet, so values restored from disk never overwrite fresher data from the Phone.
+     *
+     * @return true if the values were published
+     */
+    public static boolean restoreForecast(List<ForecastDay> days){
+        return publish(days, 0L, true);
+    }
+
+    private static boolean publish(List<ForecastDay> days, long receivedAtMs, boolean onlyIfEmpty){
+        // Swap in the next snapshot
+        TodayData current;
+        TodayData next;
+        do {
+            current = sTodayData.get();
+            if (onlyIfEmpty && current.getVersion() != 0) {
+                return false;
             }
+            next = new TodayData(days, current.getVersion() + 1, receivedAtMs);
+        } while (!sTodayData.compareAndSet(current, next));
+
+        for (OnTodayDataChangedListener listener : sListeners) {
+            listener.onTodayDataChanged();
         }
-        mBitmap = wBitmap;
+        return true;
     }
 
-    // Instantiate as invoked with saved fields on this class
+    // Returns the last published snapshot, never null
     public static TodayData fetchSunshineData(Context context){
-        return new TodayData(mHigh, mLow, mBitmap);
+        return sTodayData.get();
+    }
+
+    /**
+     * Cheap check for the watch face: the version only moves when setForecast() or
+     * restoreForecast() publishes, so an unchanged value means the previous layout can be reused.
+     */
+    public static long getTodayDataVersion(){
+        return sTodayData.get().getVersion();
     }
 
-    // Convenience class that holds WatchFace field values
+    // Formatted values of one forecast day
+    public static class ForecastDay {
+        private final long normalizedDate;
+        private final String high;
+        private final String low;
+        private final Bitmap weatherImage;
+
+        public ForecastDay(long normalizedDate, String high, String low, Bitmap weatherImage){
+            this.normalizedDate = normalizedDate;
+            this.high = high;
+            this.low = low;
+            this.weatherImage = weatherImage;
+        }
+
+        // UTC midnight of the day, as the Phone stores it
+        public long getNormalizedDate(){
+            return normalizedDate;
+        }
+
+        public String getHigh(){
+            return high;
+        }
+
+        public String getLow(){
+            return low;
+        }
+
+        public Bitmap getWeatherImage(){
+            return weatherImage;
+        }
+    }
+
+    // Immutable holder of the WatchFace field values
     public static class TodayData {
 
-        private String high;
-        private String low;
-        private Bitmap weatherImage;
+        private static final ForecastDay EMPTY_DAY = new ForecastDay(0L, null, null, null);
+
+        private final List<ForecastDay> days;
+        private final long version;
+        private final long receivedAtMs;
 
         public TodayData(){
-            super();
+            this(Collections.<ForecastDay>emptyList(), 0L, 0L);
         }
 
-        public TodayData(String hi, String lo, Bitmap image){
-            this.high = hi;
-            this.low = lo;
-            this.weatherImage = image;
+        TodayData(List<ForecastDay> days, long version, long receivedAtMs){
+            this.days = Collections.unmodifiableList(days);
+            this.version = version;
+            this.receivedAtMs = receivedAtMs;
         }
 
         public String getHighOnly(){
-            if (high!=null){
-                high.trim();
-            }
-            return high;
+            return getDay(0).getHigh();
         }
 
         public String getLowOnly(){
-            if (low!=null){
-                low.trim();
-            }
-            return low;
+            return getDay(0).getLow();
         }
         public Bitmap getWeatherImage(){
-            return weatherImage;
+            return getDay(0).getWeatherImage();
+        }
+
+        // Number of days with values, today included
+        public int getDayCount(){
+            return days.size();
+        }
+
+        // Day 0 is today; a day without values has null fields
+        public ForecastDay getDay(int index){
+            return index < days.size() ? days.get(index) : EMPTY_DAY;
+        }
+
+        public long getVersion(){
+            return version;
+        }
+
+        // 0 when the values were not received from the Phone in this process
+        public long getReceivedAtMs(){
+            return receivedAtMs;
         }
     }
 }
@@ -0,0 +1,53 @@
+package com.learn.heddy.sunshinewearever;
+
+/**
+ * Formats temperatures the way the Phone does ("21°") from the Celsius values of the
+ * {@link WatchPayload}.  The strings of the usual range are cached, so repeat values cost
+ * neither a String.format nor an allocation.
+ */
+
+public final class TemperatureFormatter {
+
+    private static final char DEGREE = '\u00B0';
+
+    /* Cached range of rounded values, covers both units for any weather on earth */
+    private static final int MIN_CACHED = -100;
+    private static final int MAX_CACHED = 150;
+
+    private static final String[] sCache = new String[MAX_CACHED - MIN_CACHED + 1];
+
+    private TemperatureFormatter() {
+    }
+
+    /**
+     * @param celsius temperature in degrees Celsius
+     * @param metric  false to convert to Fahrenheit
+     * @return the rounded temperature with a degree sign, e.g. "21°"
+     */
+    public static String format(double celsius, boolean metric) {
+        double temperature = metric ? celsius : (celsius * 1.8) + 32;
+        if (Double.isNaN(temperature) || Double.isInfinite(temperature)) {
+            return String.valueOf(temperature) + DEGREE;
+        }
+
+        // Half away from zero, as "%1.0f" rounds on the Phone
+        long rounded = Math.round(Math.abs(temperature));
+        boolean negative = temperature < 0;
+        if (negative && rounded == 0) {
+            return "-0" + DEGREE;
+        }
+        int value = (int) (negative ? -rounded : rounded);
+
+        if (value < MIN_CACHED || value > MAX_CACHED) {
+            return Integer.toString(value) + DEGREE;
+        }
+
+        // Racing threads may both build the string; either result is the same
+        String cached = sCache[value - MIN_CACHED];
+        if (cached == null) {
+            cached = Integer.toString(value) + DEGREE;
+            sCache[value - MIN_CACHED] = cached;
+        }
+        return cached;
+    }
+}
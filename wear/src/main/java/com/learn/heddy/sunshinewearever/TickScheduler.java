@@ -0,0 +1,106 @@
+package com.learn.heddy.sunshinewearever;
+
+import java.util.TimeZone;
+
+/**
+ * Works out when the watch face next looks different, so the engine can sleep until exactly then
+ * instead of ticking at a fixed rate.  The candidates are the next colon blink edge while the
+ * colons blink, and the next local minute boundary, which also covers the midnight date
+ * rollover.  A time zone offset change before that minute (DST, or a zone with second offsets)
+ * moves the displayed time at once, so it is a candidate as well.
+ *
+ * Plain Java with an injectable {@link Clock}, so the local unit tests can drive it across DST
+ * and time zone changes.
+ */
+
+class TickScheduler {
+
+    private static final long MINUTE_IN_MILLIS = 60 * 1000;
+
+    // Source of the current time, System.currentTimeMillis() outside of tests
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private final Clock mClock;
+    private final long mBlinkPeriodMs;
+    private TimeZone mTimeZone;
+
+    /**
+     * @param blinkPeriodMs time between two colon blink edges, the colons show for the first
+     *                      half of each second so this is 500
+     */
+    TickScheduler(Clock clock, long blinkPeriodMs, TimeZone timeZone) {
+        mClock = clock;
+        mBlinkPeriodMs = blinkPeriodMs;
+        mTimeZone = timeZone;
+    }
+
+    long currentTimeMillis() {
+        return mClock.currentTimeMillis();
+    }
+
+    // Called when the system time zone changes
+    void setTimeZone(TimeZone timeZone) {
+        mTimeZone = timeZone;
+    }
+
+    /**
+     * @param blinking true while the colons blink, i.e. interactive and not muted
+     * @return milliseconds from now until the next visible change, at least 1
+     */
+    long delayUntilNextChange(boolean blinking) {
+        long now = mClock.currentTimeMillis();
+        return Math.max(1, nextChangeAt(now, blinking) - now);
+    }
+
+    /**
+     * @return the time in millis of the first visible change after now
+     */
+    long nextChangeAt(long now, boolean blinking) {
+        long next = nextMinuteAt(now);
+        if (blinking) {
+            next = Math.min(next, (now / mBlinkPeriodMs + 1) * mBlinkPeriodMs);
+        }
+        return next;
+    }
+
+    /*
+     * Next local minute boundary, or the offset change before it if there is one.
+     */
+    private long nextMinuteAt(long now) {
+        int offset = mTimeZone.getOffset(now);
+        long local = now + offset;
+        long localMinutes = local / MINUTE_IN_MILLIS;
+        if (local % MINUTE_IN_MILLIS < 0) {
+            // Round down before 1970 too
+            localMinutes--;
+        }
+        long nextLocalMinute = (localMinutes + 1) * MINUTE_IN_MILLIS;
+        long candidate = nextLocalMinute - offset;
+
+        if (mTimeZone.getOffset(candidate) == offset) {
+            return candidate;
+        }
+
+        // The offset changes before that minute; find the first millisecond with the new one
+        long low = now;
+        long high = candidate;
+        while (high - low > 1) {
+            long middle = low + (high - low) / 2;
+            if (mTimeZone.getOffset(middle) == offset) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+}
@@ -0,0 +1,131 @@
+package com.learn.heddy.sunshinewearever;
+
+import java.io.PrintWriter;
+
+/**
+ * Counts what the watch face costs while it runs: a histogram of onDraw() times, frames per
+ * mode, allocations per frame and hits of the bitmaps the engine caches.  The totals are printed
+ * by {@code adb shell dumpsys activity service
+ * com.learn.heddy.sunshinewearever/.SunshineWatchFaceService}.
+ *
+ * Recording is off unless {@code adb shell setprop log.tag.WatchFaceMetrics DEBUG} was set
+ * before the watch face started; when off the engine skips the clock and allocation reads, so
+ * a frame only pays for one boolean check.
+ */
+
+class WatchFaceMetrics {
+
+    static final String TAG = "WatchFaceMetrics";
+
+    /* Upper bounds of the draw time buckets in microseconds, the last bucket is open ended */
+    private static final long[] BUCKET_LIMITS_US = {500, 1000, 2000, 4000, 8000, 16000, 33000};
+
+    private final boolean mEnabled;
+
+    private final int[] mDrawBuckets = new int[BUCKET_LIMITS_US.length + 1];
+    private long mInteractiveFrames;
+    private long mAmbientFrames;
+    private long mTotalDrawNanos;
+    private long mMaxDrawNanos;
+    private long mTotalAllocations;
+    private int mMaxAllocations;
+    private long mBitmapCacheHits;
+    private long mBitmapCacheMisses;
+
+    WatchFaceMetrics(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * @param allocations objects allocated on the drawing thread during the frame
+     */
+    synchronized void recordFrame(long drawNanos, int allocations, boolean ambient) {
+        if (!mEnabled) {
+            return;
+        }
+        if (ambient) {
+            mAmbientFrames++;
+        } else {
+            mInteractiveFrames++;
+        }
+
+        long drawUs = drawNanos / 1000;
+        int bucket = 0;
+        while (bucket < BUCKET_LIMITS_US.length && drawUs >= BUCKET_LIMITS_US[bucket]) {
+            bucket++;
+        }
+        mDrawBuckets[bucket]++;
+        mTotalDrawNanos += drawNanos;
+        mMaxDrawNanos = Math.max(mMaxDrawNanos, drawNanos);
+
+        mTotalAllocations += allocations;
+        mMaxAllocations = Math.max(mMaxAllocations, allocations);
+    }
+
+    /*
+     * A bitmap the engine keeps between frames was reused (hit) or had to be built (miss): the
+     * scaled weather image when it is built, the grayscale one in every ambient frame.
+     */
+    synchronized void recordBitmapCache(boolean hit) {
+        if (!mEnabled) {
+            return;
+        }
+        if (hit) {
+            mBitmapCacheHits++;
+        } else {
+            mBitmapCacheMisses++;
+        }
+    }
+
+    synchronized long getFrameCount() {
+        return mInteractiveFrames + mAmbientFrames;
+    }
+
+    synchronized int getBucketCount(int bucket) {
+        return mDrawBuckets[bucket];
+    }
+
+    synchronized long getBitmapCacheMisses() {
+        return mBitmapCacheMisses;
+    }
+
+    /**
+     * Prints the totals in the dumpsys format, one value per line.
+     */
+    synchronized void dump(String prefix, PrintWriter out) {
+        if (!mEnabled) {
+            out.println(prefix + "metrics disabled, run 'adb shell setprop log.tag." + TAG
+                    + " DEBUG' and restart the watch face");
+            return;
+        }
+
+        long frames = mInteractiveFrames + mAmbientFrames;
+        out.println(prefix + "frames: " + frames + " (interactive " + mInteractiveFrames
+                + ", ambient " + mAmbientFrames + ")");
+        if (frames == 0) {
+            return;
+        }
+
+        out.println(prefix + "draw time: average " + (mTotalDrawNanos / frames / 1000)
+                + " us, max " + (mMaxDrawNanos / 1000) + " us");
+        long lowerUs = 0;
+        for (int i = 0; i < mDrawBuckets.length; i++) {
+            String range = i < BUCKET_LIMITS_US.length
+                    ? lowerUs + "-" + BUCKET_LIMITS_US[i] + " us"
+                    : ">= " + lowerUs + " us";
+            out.println(prefix + "  " + range + ": " + mDrawBuckets[i]);
+            if (i < BUCKET_LIMITS_US.length) {
+                lowerUs = BUCKET_LIMITS_US[i];
+            }
+        }
+
+        out.println(prefix + "allocations per frame: average " + (mTotalAllocations / frames)
+                + ", max " + mMaxAllocations);
+        out.println(prefix + "bitmap cache: " + mBitmapCacheHits + " hits, "
+                + mBitmapCacheMisses + " misses");
+    }
+}
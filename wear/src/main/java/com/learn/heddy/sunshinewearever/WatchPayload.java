@@ -0,0 +1,159 @@
+package com.learn.heddy.sunshinewearever;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Typed weather payload sent to the WatchFace as one byte array in the DataMap.  The Watch
+ * formats the temperatures itself, so nothing has to be parsed back out of display strings.
+ *
+ * Layout (big endian):
+ *   byte   format version
+ *   byte   flags, bit 0 set when the user prefers metric units
+ *   long   time the payload was built, in millis
+ *   byte   number of days
+ *   per day:
+ *     int    day number, the normalized UTC date divided by the length of a day
+ *     short  high in hundredths of a degree Celsius
+ *     short  low in hundredths of a degree Celsius
+ *     short  OpenWeatherMap condition ID
+ *
+ * A single day is also sent on its own, as the format version followed by one day record, see
+ * {@link #encodeDay(Day)}.
+ *
+ * The mobile module has a copy of this class, keep both in step.
+ */
+public class WatchPayload {
+
+    public static final byte FORMAT_VERSION = 1;
+
+    private static final int FLAG_METRIC = 1;
+    private static final int HEADER_BYTES = 1 + 1 + 8 + 1;
+    private static final int DAY_BYTES = 4 + 2 + 2 + 2;
+    private static final int MAX_DAYS = 255;
+
+    /* Temperatures travel as hundredths of a degree */
+    private static final double TEMPERATURE_SCALE = 100.0;
+
+    private static final long DAY_IN_MILLIS = 24L * 60 * 60 * 1000;
+
+    // One day of the forecast
+    public static class Day {
+        public final long normalizedDate;
+        public final double highCelsius;
+        public final double lowCelsius;
+        public final int weatherId;
+
+        public Day(long normalizedDate, double highCelsius, double lowCelsius, int weatherId) {
+            this.normalizedDate = normalizedDate;
+            this.highCelsius = highCelsius;
+            this.lowCelsius = lowCelsius;
+            this.weatherId = weatherId;
+        }
+    }
+
+    public final boolean metric;
+    public final long timestampMillis;
+    /* Ascending by date */
+    public final List<Day> days;
+
+    public WatchPayload(boolean metric, long timestampMillis, List<Day> days) {
+        this.metric = metric;
+        this.timestampMillis = timestampMillis;
+        this.days = Collections.unmodifiableList(new ArrayList<>(days));
+    }
+
+    /**
+     * @return the encoded payload; of a longer forecast only the newest 255 days are kept
+     */
+    public byte[] encode() {
+        int dayCount = Math.min(days.size(), MAX_DAYS);
+        int firstDay = days.size() - dayCount;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + dayCount * DAY_BYTES);
+
+        buffer.put(FORMAT_VERSION);
+        buffer.put((byte) (metric ? FLAG_METRIC : 0));
+        buffer.putLong(timestampMillis);
+        buffer.put((byte) dayCount);
+        for (int i = firstDay; i < days.size(); i++) {
+            putDay(buffer, days.get(i));
+        }
+        return buffer.array();
+    }
+
+    public static byte[] encodeDay(Day day) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + DAY_BYTES);
+        buffer.put(FORMAT_VERSION);
+        putDay(buffer, day);
+        return buffer.array();
+    }
+
+    /**
+     * @return the decoded payload, null if the bytes are truncated or of an unknown version
+     */
+    public static WatchPayload decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.get() != FORMAT_VERSION) {
+                return null;
+            }
+            boolean metric = (buffer.get() & FLAG_METRIC) != 0;
+            long timestampMillis = buffer.getLong();
+            int dayCount = buffer.get() & 0xff;
+
+            List<Day> days = new ArrayList<>(dayCount);
+            for (int i = 0; i < dayCount; i++) {
+                days.add(getDay(buffer));
+            }
+            return new WatchPayload(metric, timestampMillis, days);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the day written by {@link #encodeDay(Day)}, null if the bytes can't be read
+     */
+    public static Day decodeDay(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.get() != FORMAT_VERSION) {
+                return null;
+            }
+            return getDay(buffer);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    private static void putDay(ByteBuffer buffer, Day day) {
+        buffer.putInt((int) (day.normalizedDate / DAY_IN_MILLIS));
+        buffer.putShort(toWire(day.highCelsius));
+        buffer.putShort(toWire(day.lowCelsius));
+        buffer.putShort((short) day.weatherId);
+    }
+
+    private static Day getDay(ByteBuffer buffer) {
+        long normalizedDate = buffer.getInt() * DAY_IN_MILLIS;
+        double high = buffer.getShort() / TEMPERATURE_SCALE;
+        double low = buffer.getShort() / TEMPERATURE_SCALE;
+        int weatherId = buffer.getShort();
+        return new Day(normalizedDate, high, low, weatherId);
+    }
+
+    private static short toWire(double celsius) {
+        long scaled = Math.round(celsius * TEMPERATURE_SCALE);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scaled));
+    }
+}
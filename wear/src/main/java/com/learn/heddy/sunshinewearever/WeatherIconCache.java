@@ -0,0 +1,56 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+
+/**
+ * Bounded cache of the decoded weather icons bundled with the watch, keyed by drawable
+ * resource id.  There are only about a dozen different icons, so after the first few updates
+ * nothing is decoded again.
+ */
+
+class WeatherIconCache {
+
+    /* Number of distinct condition icons in drawable */
+    private static final int MAX_ICONS = 8;
+
+    private static final LruCache<Integer, Bitmap> sIcons = new LruCache<>(MAX_ICONS);
+
+    private static int sHits;
+    private static int sMisses;
+
+    /**
+     * @return the icon for the OpenWeatherMap condition, decoded at the watch's density
+     */
+    static Bitmap getIcon(Context context, int weatherId) {
+        int resourceId = SunshineWeatherUtils.getIconResourceIdForWeatherCondition(weatherId);
+
+        synchronized (WeatherIconCache.class) {
+            Bitmap icon = sIcons.get(resourceId);
+            if (icon != null) {
+                sHits++;
+                return icon;
+            }
+            sMisses++;
+        }
+
+        // Decode outside the lock; two racing misses just decode the same small icon twice
+        Bitmap icon = BitmapFactory.decodeResource(context.getResources(), resourceId);
+        if (icon != null) {
+            synchronized (WeatherIconCache.class) {
+                sIcons.put(resourceId, icon);
+            }
+        }
+        return icon;
+    }
+
+    static synchronized int getHitCount() {
+        return sHits;
+    }
+
+    static synchronized int getMissCount() {
+        return sMisses;
+    }
+}
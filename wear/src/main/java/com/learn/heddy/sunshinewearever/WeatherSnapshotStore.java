@@ -0,0 +1,135 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Keeps the last weather data received from the Phone in a small binary file so a restarted
+ * watch face process can draw real data on its first frame instead of the placeholders.
+ *
+ * File layout (big endian):
+ *   int    magic
+ *   byte   format version
+ *   long   saved time in millis
+ *   short  length of the encoded {@link WatchPayload}, followed by its bytes
+ */
+
+public class WeatherSnapshotStore {
+    private static final String TAG = "WeatherSnapshotStore";
+
+    private static final String FILE_NAME = "weather_snapshot.bin";
+    private static final int MAGIC = 0x53554e53;
+    private static final byte FORMAT_VERSION = 3;
+
+    // Holds the values read back from the file
+    public static class Snapshot {
+        public final WatchPayload payload;
+        public final long savedAtMillis;
+
+        Snapshot(WatchPayload payload, long savedAtMillis) {
+            this.payload = payload;
+            this.savedAtMillis = savedAtMillis;
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and renames it over the old one, so a reader never
+     * maps a half-written file.  Call off the main thread.
+     */
+    public static void save(Context context, byte[] payloadBytes) {
+        byte[] encoded = encode(payloadBytes, System.currentTimeMillis());
+
+        File target = new File(context.getFilesDir(), FILE_NAME);
+        File temp = new File(context.getFilesDir(), FILE_NAME + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            out.write(encoded);
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write weather snapshot " + e);
+            return;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+
+        if (!temp.renameTo(target)) {
+            Log.e(TAG, "Failed to replace weather snapshot");
+        }
+    }
+
+    /**
+     * Memory-maps the snapshot file and decodes it.
+     *
+     * @return the saved snapshot, null if there is none or it can't be read
+     */
+    public static Snapshot load(Context context) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        if (!file.exists()) {
+            return null;
+        }
+
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read weather snapshot " + e);
+            return null;
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    static byte[] encode(byte[] payloadBytes, long savedAtMillis) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 1 + 8 + 2 + payloadBytes.length);
+        buffer.putInt(MAGIC);
+        buffer.put(FORMAT_VERSION);
+        buffer.putLong(savedAtMillis);
+        buffer.putShort((short) payloadBytes.length);
+        buffer.put(payloadBytes);
+        return buffer.array();
+    }
+
+    static Snapshot decode(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.get() != FORMAT_VERSION) {
+                Log.w(TAG, "Ignoring weather snapshot with unknown format");
+                return null;
+            }
+            long savedAtMillis = buffer.getLong();
+
+            byte[] payloadBytes = new byte[buffer.getShort() & 0xffff];
+            buffer.get(payloadBytes);
+
+            WatchPayload payload = WatchPayload.decode(payloadBytes);
+            return payload != null ? new Snapshot(payload, savedAtMillis) : null;
+        } catch (BufferUnderflowException e) {
+            Log.w(TAG, "Ignoring truncated weather snapshot");
+            return null;
+        }
+    }
+}
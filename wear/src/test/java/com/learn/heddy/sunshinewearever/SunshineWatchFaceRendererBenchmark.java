@@ -0,0 +1,160 @@
+package com.learn.heddy.sunshinewearever;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local render benchmark of {@link SunshineWatchFaceRenderer}, in interactive and ambient mode,
+ * on round and square surfaces, with and without weather data.  Prints ns/frame and bytes
+ * allocated/frame for each case.
+ *
+ * Draw calls go to a canvas stand-in that only counts them, so the numbers are the renderer's
+ * own work (layout, formatting, caching) and not Robolectric's canvas bookkeeping.  Compare them
+ * between runs on the same machine; the check that fails the build is that a steady frame never
+ * lays out or rebuilds a bitmap again.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class SunshineWatchFaceRendererBenchmark {
+
+    private static final int WARM_UP_FRAMES = 200;
+    private static final int MEASURED_FRAMES = 2000;
+
+    /* Interactive frames come twice a second for the colon blink */
+    private static final long FRAME_INTERVAL_MS = 500;
+
+    /* 2017-06-01 10:15:00 UTC */
+    private static final long START_MS = 1496312100000L;
+
+    // Counts the draw calls instead of drawing
+    private static class CountingCanvas extends Canvas {
+        int drawCalls;
+
+        @Override
+        public void drawColor(int color) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            drawCalls++;
+        }
+    }
+
+    @Test
+    public void render_roundInteractive() throws Exception {
+        run("round interactive", 320, true, false);
+    }
+
+    @Test
+    public void render_roundAmbient() throws Exception {
+        run("round ambient", 320, true, true);
+    }
+
+    @Test
+    public void render_squareInteractive() throws Exception {
+        run("square interactive", 280, false, false);
+    }
+
+    @Test
+    public void render_squareAmbient() throws Exception {
+        run("square ambient", 280, false, true);
+    }
+
+    private void run(String name, int size, boolean round, boolean ambient) {
+        measure(name + ", no weather", size, round, ambient, new SunshineWatchFaceUtil.TodayData());
+        measure(name + ", weather", size, round, ambient, forecast());
+    }
+
+    private void measure(String name, int size, boolean round, boolean ambient,
+                         SunshineWatchFaceUtil.TodayData sunshineData) {
+        WatchFaceMetrics metrics = new WatchFaceMetrics(true);
+        SunshineWatchFaceRenderer renderer =
+                new SunshineWatchFaceRenderer(RuntimeEnvironment.application.getResources(), metrics);
+        renderer.setRound(round);
+        renderer.setSurfaceSize(size, size);
+        renderer.setTimeZone(TimeZone.getTimeZone("UTC"));
+        renderer.setAmbient(ambient);
+
+        // Ambient frames only come once a minute
+        long interval = ambient ? 60 * 1000 : FRAME_INTERVAL_MS;
+        CountingCanvas canvas = new CountingCanvas();
+        long now = START_MS;
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            renderer.draw(canvas, now, (now % 1000) < FRAME_INTERVAL_MS, true, sunshineData);
+            now += interval;
+        }
+
+        long missesBefore = metrics.getBitmapCacheMisses();
+        long bytesBefore = allocatedBytes();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            renderer.draw(canvas, now, (now % 1000) < FRAME_INTERVAL_MS, true, sunshineData);
+            now += interval;
+        }
+        long nanosPerFrame = (System.nanoTime() - startNanos) / MEASURED_FRAMES;
+        long bytesAfter = allocatedBytes();
+
+        String bytesPerFrame = bytesBefore >= 0 && bytesAfter >= 0
+                ? String.valueOf((bytesAfter - bytesBefore) / MEASURED_FRAMES) : "n/a";
+        System.out.println("SunshineWatchFaceRenderer " + name + ": " + nanosPerFrame
+                + " ns/frame, " + bytesPerFrame + " bytes/frame");
+
+        assertTrue(canvas.drawCalls > 0);
+        assertEquals("steady frames laid out the weather again",
+                missesBefore, metrics.getBitmapCacheMisses());
+    }
+
+    private static SunshineWatchFaceUtil.TodayData forecast() {
+        Bitmap icon = Bitmap.createBitmap(96, 96, Bitmap.Config.ARGB_8888);
+        List<SunshineWatchFaceUtil.ForecastDay> days = new ArrayList<>();
+        days.add(new SunshineWatchFaceUtil.ForecastDay(1496275200000L,
+                TemperatureFormatter.format(24.0, true), TemperatureFormatter.format(16.0, true),
+                icon));
+        return new SunshineWatchFaceUtil.TodayData(days, 1L, 0L);
+    }
+
+    /*
+     * Bytes allocated by this thread so far, or -1 where the JVM can't tell.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotSpot = (com.sun.management.ThreadMXBean) threads;
+            if (hotSpot.isThreadAllocatedMemorySupported()) {
+                return hotSpot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,107 @@
+package com.learn.heddy.sunshinewearever;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test for the snapshot publication in {@link SunshineWatchFaceUtil}.
+ */
+public class SunshineWatchFaceUtilTest {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int WRITES_PER_WRITER = 20000;
+
+    @Test
+    public void setForecast_bumpsVersion() throws Exception {
+        long version = SunshineWatchFaceUtil.getTodayDataVersion();
+
+        SunshineWatchFaceUtil.setForecast(today("21\u00B0", "15\u00B0"), 0L);
+
+        SunshineWatchFaceUtil.TodayData data = SunshineWatchFaceUtil.fetchSunshineData(null);
+        assertEquals("21\u00B0", data.getHighOnly());
+        assertEquals("15\u00B0", data.getLowOnly());
+        assertEquals(version + 1, data.getVersion());
+    }
+
+    /*
+     * Writers publish matching high and low values while readers check that every snapshot they see carries a
+     * matching high and low and that versions never go backwards.
+     */
+    @Test
+    public void concurrentWritersAndReaders_seeConsistentSnapshots() throws Exception {
+        final long startVersion = SunshineWatchFaceUtil.getTodayDataVersion();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        final CountDownLatch readersDone = new CountDownLatch(READERS);
+        final AtomicReference<String> failure = new AtomicReference<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < WRITES_PER_WRITER; i++) {
+                            String value = writer + "-" + i;
+                            SunshineWatchFaceUtil.setForecast(today(value, value), 0L);
+                        }
+                    } catch (InterruptedException e) {
+                        failure.compareAndSet(null, "writer interrupted");
+                    } finally {
+                        writersDone.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        for (int r = 0; r < READERS; r++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        long lastVersion = startVersion;
+                        while (writersDone.getCount() > 0) {
+                            SunshineWatchFaceUtil.TodayData data =
+                                    SunshineWatchFaceUtil.fetchSunshineData(null);
+                            if (data.getVersion() < lastVersion) {
+                                failure.compareAndSet(null, "version went backwards");
+                            }
+                            lastVersion = data.getVersion();
+                            if (data.getVersion() > startVersion
+                                    && !data.getHighOnly().equals(data.getLowOnly())) {
+                                failure.compareAndSet(null, "torn snapshot "
+                                        + data.getHighOnly() + "/" + data.getLowOnly());
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        failure.compareAndSet(null, "reader interrupted");
+                    } finally {
+                        readersDone.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        start.countDown();
+        assertTrue(writersDone.await(60, TimeUnit.SECONDS));
+        assertTrue(readersDone.await(60, TimeUnit.SECONDS));
+
+        assertNull(failure.get());
+        assertEquals(startVersion + WRITERS * WRITES_PER_WRITER,
+                SunshineWatchFaceUtil.getTodayDataVersion());
+    }
+
+    private static List<SunshineWatchFaceUtil.ForecastDay> today(String high, String low) {
+        return Collections.singletonList(new SunshineWatchFaceUtil.ForecastDay(0L, high, low, null));
+    }
+}
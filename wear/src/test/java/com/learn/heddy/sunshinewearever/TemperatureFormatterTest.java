@@ -0,0 +1,32 @@
+package com.learn.heddy.sunshinewearever;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test for {@link TemperatureFormatter}, checked against the Phone's "%1.0f" format.
+ */
+public class TemperatureFormatterTest {
+
+    private static final String DEGREE = "\u00B0";
+
+    @Test
+    public void format_matchesPhoneFormat() throws Exception {
+        for (int hundredths = -5000; hundredths <= 5000; hundredths++) {
+            double celsius = hundredths / 100.0;
+            assertEquals(phoneFormat(celsius, true), TemperatureFormatter.format(celsius, true));
+            assertEquals(phoneFormat(celsius, false), TemperatureFormatter.format(celsius, false));
+        }
+    }
+
+    @Test
+    public void format_returnsCachedStrings() throws Exception {
+        assertSame(TemperatureFormatter.format(21.0, true), TemperatureFormatter.format(21.2, true));
+    }
+
+    private static String phoneFormat(double celsius, boolean metric) {
+        double temperature = metric ? celsius : (celsius * 1.8) + 32;
+        return String.format("%1.0f", temperature) + DEGREE;
+    }
+}
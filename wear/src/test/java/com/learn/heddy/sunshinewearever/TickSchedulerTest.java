@@ -0,0 +1,138 @@
+package com.learn.heddy.sunshinewearever;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test for {@link TickScheduler}, driven by a fake clock across minute, midnight, DST
+ * and time zone changes.
+ */
+public class TickSchedulerTest {
+
+    private static final long BLINK_MS = 500;
+    private static final long MINUTE = 60 * 1000;
+
+    private static class FakeClock implements TickScheduler.Clock {
+        long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    @Test
+    public void nextChange_isBlinkEdgeWhileBlinking() throws Exception {
+        FakeClock clock = new FakeClock();
+        TickScheduler scheduler = new TickScheduler(clock, BLINK_MS, TimeZone.getTimeZone("UTC"));
+
+        clock.now = utc(2017, Calendar.JUNE, 1, 10, 15, 20) + 120;
+        assertEquals(380, scheduler.delayUntilNextChange(true));
+
+        clock.now += 380;
+        assertEquals(BLINK_MS, scheduler.delayUntilNextChange(true));
+    }
+
+    @Test
+    public void nextChange_isMinuteWhenNotBlinking() throws Exception {
+        FakeClock clock = new FakeClock();
+        TickScheduler scheduler = new TickScheduler(clock, BLINK_MS, TimeZone.getTimeZone("UTC"));
+
+        clock.now = utc(2017, Calendar.JUNE, 1, 10, 15, 20) + 120;
+        assertEquals(39880, scheduler.delayUntilNextChange(false));
+    }
+
+    @Test
+    public void nextChange_followsHalfHourZone() throws Exception {
+        // Asia/Kolkata is UTC+5:30, so its minutes line up with UTC minutes
+        TickScheduler scheduler = new TickScheduler(new FakeClock(), BLINK_MS,
+                TimeZone.getTimeZone("Asia/Kolkata"));
+
+        long now = utc(2017, Calendar.JUNE, 1, 18, 29, 59) + 999;
+        assertEquals(now + 1, scheduler.nextChangeAt(now, false));
+    }
+
+    @Test
+    public void nextChange_coversMidnight() throws Exception {
+        TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+        TickScheduler scheduler = new TickScheduler(new FakeClock(), BLINK_MS, newYork);
+
+        // 23:59:30 EDT on June 1st is 03:59:30 UTC on June 2nd
+        long now = utc(2017, Calendar.JUNE, 2, 3, 59, 30);
+        assertEquals(utc(2017, Calendar.JUNE, 2, 4, 0, 0), scheduler.nextChangeAt(now, false));
+    }
+
+    @Test
+    public void nextChange_acrossSpringForward() throws Exception {
+        TickScheduler scheduler = new TickScheduler(new FakeClock(), BLINK_MS,
+                TimeZone.getTimeZone("America/New_York"));
+
+        // 01:59:30 EST, the next minute shows as 03:00 EDT
+        long now = utc(2017, Calendar.MARCH, 12, 6, 59, 30);
+        assertEquals(utc(2017, Calendar.MARCH, 12, 7, 0, 0), scheduler.nextChangeAt(now, false));
+    }
+
+    @Test
+    public void nextChange_acrossFallBack() throws Exception {
+        TickScheduler scheduler = new TickScheduler(new FakeClock(), BLINK_MS,
+                TimeZone.getTimeZone("America/New_York"));
+
+        // 01:59:30 EDT, the next minute shows as 01:00 EST
+        long now = utc(2017, Calendar.NOVEMBER, 5, 5, 59, 30);
+        assertEquals(utc(2017, Calendar.NOVEMBER, 5, 6, 0, 0), scheduler.nextChangeAt(now, false));
+
+        // and one minute later, 01:00 EST to 01:01 EST
+        now = utc(2017, Calendar.NOVEMBER, 5, 6, 0, 0);
+        assertEquals(now + MINUTE, scheduler.nextChangeAt(now, false));
+    }
+
+    @Test
+    public void nextChange_isOffsetChangeBetweenMinutes() throws Exception {
+        // DST starts at 02:00:30 local standard time, half way into a minute
+        SimpleTimeZone zone = new SimpleTimeZone(0, "HalfMinute",
+                Calendar.MARCH, 1, 0, 2 * 60 * 60 * 1000 + 30 * 1000,
+                Calendar.OCTOBER, 1, 0, 2 * 60 * 60 * 1000);
+        TickScheduler scheduler = new TickScheduler(new FakeClock(), BLINK_MS, zone);
+
+        long transition = utc(2017, Calendar.MARCH, 1, 2, 0, 30);
+        assertEquals(transition, scheduler.nextChangeAt(transition - 10 * 1000, false));
+
+        // Blink edges still come first while blinking
+        assertEquals(transition - 10 * 1000 + BLINK_MS,
+                scheduler.nextChangeAt(transition - 10 * 1000, true));
+    }
+
+    @Test
+    public void setTimeZone_movesMinuteBoundary() throws Exception {
+        FakeClock clock = new FakeClock();
+        TickScheduler scheduler = new TickScheduler(clock, BLINK_MS, TimeZone.getTimeZone("UTC"));
+
+        clock.now = utc(2017, Calendar.JUNE, 1, 10, 15, 0);
+        assertEquals(MINUTE, scheduler.delayUntilNextChange(false));
+
+        // A zone 20 seconds ahead of UTC changes its minute 40 seconds from now
+        scheduler.setTimeZone(new SimpleTimeZone(20 * 1000, "PlusTwenty"));
+        assertEquals(40 * 1000, scheduler.delayUntilNextChange(false));
+    }
+
+    @Test
+    public void nextChange_handlesTimesBefore1970() throws Exception {
+        TickScheduler scheduler = new TickScheduler(new FakeClock(), BLINK_MS,
+                TimeZone.getTimeZone("UTC"));
+
+        assertEquals(0, scheduler.nextChangeAt(-1, false));
+        assertEquals(-MINUTE, scheduler.nextChangeAt(-MINUTE - 1, false));
+    }
+
+    private static long utc(int year, int month, int day, int hour, int minute, int second) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute, second);
+        return calendar.getTimeInMillis();
+    }
+}
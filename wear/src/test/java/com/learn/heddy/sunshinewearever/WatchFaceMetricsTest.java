@@ -0,0 +1,63 @@
+package com.learn.heddy.sunshinewearever;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test for {@link WatchFaceMetrics}.
+ */
+public class WatchFaceMetricsTest {
+
+    @Test
+    public void recordFrame_fillsHistogramBuckets() throws Exception {
+        WatchFaceMetrics metrics = new WatchFaceMetrics(true);
+
+        metrics.recordFrame(100 * 1000, 0, false);      // 0-500 us
+        metrics.recordFrame(500 * 1000, 0, false);      // 500-1000 us
+        metrics.recordFrame(40 * 1000 * 1000, 0, true); // >= 33000 us
+
+        assertEquals(3, metrics.getFrameCount());
+        assertEquals(1, metrics.getBucketCount(0));
+        assertEquals(1, metrics.getBucketCount(1));
+        assertEquals(1, metrics.getBucketCount(7));
+    }
+
+    @Test
+    public void disabled_recordsNothing() throws Exception {
+        WatchFaceMetrics metrics = new WatchFaceMetrics(false);
+
+        metrics.recordFrame(100 * 1000, 10, false);
+        metrics.recordBitmapCache(true);
+
+        assertEquals(0, metrics.getFrameCount());
+        assertTrue(dump(metrics).contains("metrics disabled"));
+    }
+
+    @Test
+    public void dump_printsTotals() throws Exception {
+        WatchFaceMetrics metrics = new WatchFaceMetrics(true);
+
+        metrics.recordFrame(1000 * 1000, 4, false);
+        metrics.recordFrame(3000 * 1000, 0, true);
+        metrics.recordBitmapCache(true);
+        metrics.recordBitmapCache(false);
+
+        String dump = dump(metrics);
+        assertTrue(dump.contains("frames: 2 (interactive 1, ambient 1)"));
+        assertTrue(dump.contains("draw time: average 2000 us, max 3000 us"));
+        assertTrue(dump.contains("allocations per frame: average 2, max 4"));
+        assertTrue(dump.contains("bitmap cache: 1 hits, 1 misses"));
+    }
+
+    private static String dump(WatchFaceMetrics metrics) {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        metrics.dump("", out);
+        out.flush();
+        return text.toString();
+    }
+}